@@ -5,6 +5,7 @@ import java.util.HashMap;
 import graph.Graph;
 import graph.Graph.Vertex;
 import graph.LGraph;
+import graph.properties.IntVertexArray;
 import graph.properties.VertexArray;
 
 
@@ -41,11 +42,11 @@ public class VertexLabelConverter<IE> extends VertexLabelRefiner<IE, LGraph<?,IE
 	}
 	
 	@Override
-	public VertexArray<Integer> vertexRefine(LGraph<?, IE> lg) {
+	public IntVertexArray vertexRefine(LGraph<?, IE> lg) {
 		Graph g = lg.getGraph();
 		VertexArray<?> va = lg.getVertexLabel();
 		
-		VertexArray<Integer> vaRefined = new VertexArray<Integer>(g);
+		IntVertexArray vaRefined = new IntVertexArray(g);
 		for (Vertex v : g.vertices()) {
 			Object label = va.get(v);
 			Integer newLabel = labelMap.get(label);
@@ -53,7 +54,7 @@ public class VertexLabelConverter<IE> extends VertexLabelRefiner<IE, LGraph<?,IE
 				newLabel = getNextLabel();
 				labelMap.put(label, newLabel);
 			}
-			vaRefined.set(v, newLabel);		
+			vaRefined.setInt(v, newLabel);
 		}
 		
 		return vaRefined;
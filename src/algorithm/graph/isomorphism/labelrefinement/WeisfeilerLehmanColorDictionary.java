@@ -0,0 +1,325 @@
+package algorithm.graph.isomorphism.labelrefinement;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import datastructure.CompressedFeatureVector;
+import datastructure.FeatureDictionary;
+import datastructure.IntSequenceMap;
+import graph.Graph;
+import graph.Graph.Edge;
+import graph.Graph.Vertex;
+import graph.LGraph;
+import graph.properties.EdgeArray;
+import graph.properties.VertexArray;
+
+/**
+ * Assigns colors to the vertices of graphs by a fixed number of
+ * Weisfeiler-Lehman refinement steps, where the mapping of vertex labels
+ * and signatures to colors is stored and shared by all graphs. In contrast
+ * to {@link WeisfeilerLehmanIntRefiner} the mapping is never cleared, hence
+ * the colors obtained for a graph are comparable to the colors of all
+ * other graphs processed by the same dictionary, independent of the order
+ * of processing. The dictionary is serializable and can be extended by
+ * further graphs after loading.
+ *
+ * The signatures are the same as those of {@link WeisfeilerLehmanIntRefiner}.
+ * Colors are assigned consecutively in the order of first occurrence, such
+ * that the colors of different iterations are disjoint. A dictionary built
+ * from a training set can be applied to new graphs without modifying it,
+ * see {@link Unseen}.
+ *
+ * Note: Vertex and edge labels are identified by their equals() and
+ * hashCode() methods and must be serializable.
+ *
+ * This class is thread-safe, colors are looked up under a read lock and
+ * added under a write lock.
+ */
+public class WeisfeilerLehmanColorDictionary implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Treatment of vertex labels and signatures, which are not contained in
+	 * the dictionary.
+	 */
+	public enum Unseen {
+		/**
+		 * Assign new colors, which are added to the dictionary.
+		 */
+		ADD,
+		/**
+		 * Assign new negative colors, which are distinct from all colors of 
+		 * the dictionary, but are valid for a single graph only. The 
+		 * dictionary is not modified.
+		 */
+		FRESH,
+		/**
+		 * Assign the color {@link WeisfeilerLehmanColorDictionary#DROPPED}, 
+		 * which is ignored by the color histograms. The dictionary is not 
+		 * modified.
+		 */
+		DROP
+	}
+
+	/**
+	 * Color of vertices with unseen label or signature for the policy
+	 * {@link Unseen#DROP}. In the following iterations the signatures of 
+	 * the vertex and its neighbors are unseen as well.
+	 */
+	public static final int DROPPED = -1;
+
+	private final int height;
+	private final FeatureDictionary<Object> vertexLabels;
+	private final FeatureDictionary<Object> edgeLabels;
+	// signatures of the iterations 1, ..., height
+	private final IntSequenceMap[] signatures;
+
+	// colors of the ids of the vertex labels (iteration 0) and signatures
+	private final int[][] colors;
+	private final int[] idCount;
+	private int colorCount;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * @param height the number of refinement steps
+	 */
+	public WeisfeilerLehmanColorDictionary(int height) {
+		this.height = height;
+		this.vertexLabels = new FeatureDictionary<>();
+		this.edgeLabels = new FeatureDictionary<>();
+		this.signatures = new IntSequenceMap[height];
+		for (int i=0; i<height; i++) {
+			signatures[i] = new IntSequenceMap();
+		}
+		this.colors = new int[height+1][16];
+		this.idCount = new int[height+1];
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the number of colors, i.e., the color assigned next.
+	 */
+	public int getColorCount() {
+		lock.readLock().lock();
+		try {
+			return colorCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Computes the colors of the vertices of the graph for the iterations
+	 * 0, ..., height, where iteration 0 represents the original labels.
+	 * Unseen labels and signatures are assigned new colors.
+	 * @param lg the graph
+	 * @return the colors indexed by iteration and vertex index
+	 */
+	public int[][] getColors(LGraph<?, ?> lg) {
+		return getColors(lg, height, Unseen.ADD);
+	}
+
+	/**
+	 * Computes the colors of the vertices of the graph for the iterations
+	 * 0, ..., iterations, where iteration 0 represents the original labels.
+	 * Only the policy {@link Unseen#ADD} modifies the dictionary, the other
+	 * policies allow concurrent calls without blocking each other.
+	 * @param lg the graph
+	 * @param iterations the number of refinement steps, at most the height 
+	 * of the dictionary
+	 * @param unseen the treatment of unseen labels and signatures
+	 * @return the colors indexed by iteration and vertex index
+	 */
+	public int[][] getColors(LGraph<?, ?> lg, int iterations, Unseen unseen) {
+		if (iterations < 0 || iterations > height) {
+			throw new IllegalArgumentException("The number of iterations must be between 0 and "+height+".");
+		}
+		boolean add = unseen == Unseen.ADD;
+		Lock l = add ? lock.writeLock() : lock.readLock();
+		Graph g = lg.getGraph();
+		VertexArray<?> va = lg.getVertexLabel();
+		EdgeArray<?> ea = lg.getEdgeLabel();
+		int n = g.getVertexCount();
+		int[][] r = new int[iterations+1][n];
+		// ids of unseen labels and signatures valid for this graph only
+		FeatureDictionary<Object> freshLabels = null;
+		FeatureDictionary<Object> freshEdgeLabels = null;
+		int freshCount = 0;
+
+		// adjacency lists with edge label ids
+		int[] start = new int[n+1];
+		int[] adj = new int[2*g.getEdgeCount()];
+		int[] adjLabel = new int[adj.length];
+		int k = 0;
+		for (int i=0; i<n; i++) {
+			Vertex v = g.getVertex(i);
+			for (Edge e : v.edges()) {
+				if (k == adj.length) {
+					adj = Arrays.copyOf(adj, 2*k+1);
+					adjLabel = Arrays.copyOf(adjLabel, adj.length);
+				}
+				Object el = ea.get(e);
+				int id = add ? edgeLabels.getId(el) : edgeLabels.getExistingId(el);
+				if (id == -1 && unseen == Unseen.FRESH) {
+					if (freshEdgeLabels == null) freshEdgeLabels = new FeatureDictionary<>();
+					id = DROPPED - 1 - freshEdgeLabels.getId(el);
+				}
+				adj[k] = e.getOppositeVertex(v).getIndex();
+				adjLabel[k++] = id;
+			}
+			start[i+1] = k;
+		}
+
+		int[] labelIds = new int[n];
+		for (int i=0; i<n; i++) {
+			Object vl = va.get(g.getVertex(i));
+			labelIds[i] = add ? vertexLabels.getId(vl) : vertexLabels.getExistingId(vl);
+		}
+		l.lock();
+		try {
+			for (int i=0; i<n; i++) {
+				r[0][i] = add ? getColor(0, labelIds[i]) : getExistingColor(0, labelIds[i]);
+			}
+		} finally {
+			l.unlock();
+		}
+		for (int i=0; i<n; i++) {
+			if (r[0][i] == DROPPED && unseen == Unseen.FRESH) {
+				if (freshLabels == null) freshLabels = new FeatureDictionary<>();
+				r[0][i] = DROPPED - 1 - freshLabels.getId(va.get(g.getVertex(i)));
+			}
+		}
+		if (freshLabels != null) freshCount = freshLabels.size();
+
+		int[] sig = new int[2*n + 2*k];
+		long[] pairs = new long[16];
+		for (int it=1; it<=iterations; it++) {
+			int[] prev = r[it-1];
+			int s = 0;
+			for (int i=0; i<n; i++) {
+				int d = start[i+1] - start[i];
+				if (d > pairs.length) pairs = new long[Math.max(d, 2*pairs.length)];
+				for (int p=start[i], j=0; p<start[i+1]; p++, j++) {
+					pairs[j] = ((long)adjLabel[p] << 32) | (prev[adj[p]] & 0xFFFFFFFFL);
+				}
+				Arrays.sort(pairs, 0, d);
+				sig[s++] = d;
+				sig[s++] = prev[i];
+				for (int j=0; j<d; j++) {
+					sig[s++] = (int)(pairs[j] >>> 32);
+					sig[s++] = (int)pairs[j];
+				}
+			}
+			IntSequenceMap map = signatures[it-1];
+			l.lock();
+			try {
+				s = 0;
+				for (int i=0; i<n; i++) {
+					int end = s + 2*sig[s] + 2;
+					r[it][i] = add ? getColor(it, map.getId(sig, s, end)) : getExistingColor(it, map.getExistingId(sig, s, end));
+					s = end;
+				}
+			} finally {
+				l.unlock();
+			}
+			if (unseen == Unseen.FRESH) {
+				IntSequenceMap fresh = null;
+				s = 0;
+				for (int i=0; i<n; i++) {
+					int end = s + 2*sig[s] + 2;
+					if (r[it][i] == DROPPED) {
+						if (fresh == null) fresh = new IntSequenceMap();
+						r[it][i] = DROPPED - 1 - freshCount - fresh.getId(sig, s, end);
+					}
+					s = end;
+				}
+				if (fresh != null) freshCount += fresh.size();
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Computes the color histograms of the graph for the iterations 0, ...,
+	 * height, where the features are the colors. Unseen labels and 
+	 * signatures are assigned new colors.
+	 * @param lg the graph
+	 * @return the feature vectors indexed by iteration
+	 * @see #getColors(LGraph)
+	 */
+	public CompressedFeatureVector[] getFeatureVectorsByIteration(LGraph<?, ?> lg) {
+		return getFeatureVectorsByIteration(lg, height, Unseen.ADD);
+	}
+
+	/**
+	 * Computes the color histograms of the graph for the iterations 0, ...,
+	 * iterations, where the features are the colors. Vertices with color 
+	 * {@link #DROPPED} are not counted.
+	 * @param lg the graph
+	 * @param iterations the number of refinement steps, at most the height 
+	 * of the dictionary
+	 * @param unseen the treatment of unseen labels and signatures
+	 * @return the feature vectors indexed by iteration
+	 * @see #getColors(LGraph, int, Unseen)
+	 */
+	public CompressedFeatureVector[] getFeatureVectorsByIteration(LGraph<?, ?> lg, int iterations, Unseen unseen) {
+		int[][] c = getColors(lg, iterations, unseen);
+		CompressedFeatureVector[] r = new CompressedFeatureVector[c.length];
+		for (int it=0; it<c.length; it++) {
+			r[it] = histogram(c[it]);
+		}
+		return r;
+	}
+
+	private static CompressedFeatureVector histogram(int[] colors) {
+		int[] sorted = colors.clone();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i=0; i<sorted.length; i++) {
+			if (sorted[i] != DROPPED && (i == 0 || sorted[i] != sorted[i-1])) distinct++;
+		}
+		int[] features = new int[distinct];
+		double[] values = new double[distinct];
+		int k = -1;
+		for (int i=0; i<sorted.length; i++) {
+			if (sorted[i] == DROPPED) continue;
+			if (k == -1 || sorted[i] != features[k]) features[++k] = sorted[i];
+			values[k]++;
+		}
+		return new CompressedFeatureVector(features, values);
+	}
+
+	/**
+	 * Returns the color of an existing label or signature id of the given 
+	 * iteration or {@link #DROPPED} if the id is -1 or has not been assigned 
+	 * a color yet. Requires the read lock.
+	 */
+	private int getExistingColor(int iteration, int id) {
+		return id == -1 || id >= idCount[iteration] ? DROPPED : colors[iteration][id];
+	}
+
+	/**
+	 * Returns the color of the label or signature id of the given iteration.
+	 * Ids are consecutive, but label ids are assigned before acquiring the 
+	 * lock, hence all ids up to the given one without color are assigned 
+	 * colors in the order of their ids. Requires the write lock.
+	 */
+	private int getColor(int iteration, int id) {
+		if (id >= idCount[iteration]) {
+			if (id >= colors[iteration].length) {
+				colors[iteration] = Arrays.copyOf(colors[iteration], Math.max(id+1, 2*colors[iteration].length));
+			}
+			while (idCount[iteration] <= id) {
+				colors[iteration][idCount[iteration]++] = colorCount++;
+			}
+		}
+		return colors[iteration][id];
+	}
+
+}
@@ -0,0 +1,158 @@
+package algorithm.graph.isomorphism.labelrefinement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import concepts.TransformationTools;
+import datastructure.FeatureDictionary;
+import datastructure.IntSequenceMap;
+import graph.Graph;
+import graph.Graph.Edge;
+import graph.Graph.Vertex;
+import graph.LGraph;
+import graph.properties.EdgeArray;
+import graph.properties.IntVertexArray;
+import graph.properties.VertexArray;
+
+/**
+ * Computes a Weisfeiler-Lehman refinement step followed by label compression
+ * for graphs with integer vertex labels. This yields the same result as
+ * applying {@link WeisfeilerLehmanRefiner} and {@link VertexLabelConverter}
+ * with the same offset, but avoids the construction of string labels:
+ * The signature of a vertex consists of its label followed by the sorted
+ * pairs of edge label id and neighbor label and is compressed by an
+ * {@link IntSequenceMap}.
+ *
+ * Note: Edge labels are identified by their equals() and hashCode() methods,
+ * while {@link WeisfeilerLehmanRefiner} uses their toString() representation.
+ * Both coincide for labels of a common type like Integer or String.
+ *
+ * Analogous to {@link VertexLabelConverter} new labels are assigned in the
+ * order of first occurrence and the mapping can be cleared after each
+ * iteration, such that labels of different iterations are disjoint.
+ *
+ * @see #refineAll(List)
+ * @see #clearLabelMap()
+ *
+ * @param <IE> edge label type of the input graph, which is preserved by
+ * the refinement step
+ */
+public class WeisfeilerLehmanIntRefiner<IE> extends VertexLabelRefiner<IE, LGraph<Integer, IE>, Integer> {
+
+	private int offset;
+	private IntSequenceMap labelMap;
+	private FeatureDictionary<Object> edgeLabels;
+
+	/**
+	 * Creates a new refiner with an initial empty mapping.
+	 * @param offset the vertex label assigned to the first unseen signature
+	 */
+	public WeisfeilerLehmanIntRefiner(int offset) {
+		this.offset = offset;
+		this.labelMap = new IntSequenceMap();
+		this.edgeLabels = new FeatureDictionary<>();
+	}
+
+	public WeisfeilerLehmanIntRefiner() {
+		this(0);
+	}
+
+	@Override
+	public IntVertexArray vertexRefine(LGraph<Integer, IE> lg) {
+		return compress(lg.getGraph(), signatures(lg));
+	}
+
+	/**
+	 * Refines and compresses all graphs. The signatures are computed in
+	 * parallel, labels are assigned sequentially in the order of the list.
+	 * @param lgs the graphs
+	 * @return the refined graphs
+	 */
+	public ArrayList<LGraph<Integer, IE>> refineAll(List<? extends LGraph<Integer, IE>> lgs) {
+		ArrayList<int[]> signatures = TransformationTools.transformAllParallel(this::signatures, lgs);
+		ArrayList<LGraph<Integer, IE>> r = new ArrayList<>(lgs.size());
+		for (int i=0; i<lgs.size(); i++) {
+			LGraph<Integer, IE> lg = lgs.get(i);
+			r.add(new LGraph<Integer, IE>(lg.getGraph(), compress(lg.getGraph(), signatures.get(i)), lg.getEdgeLabel()));
+			signatures.set(i, null);
+		}
+		return r;
+	}
+
+	/**
+	 * Clears the current mapping of signatures to labels.
+	 */
+	public void clearLabelMap() {
+		offset = getNextLabel();
+		labelMap.clear();
+	}
+
+	/**
+	 * Returns the integer label that will be assigned to the next unseen
+	 * signature.
+	 */
+	public int getNextLabel() {
+		return labelMap.size()+offset;
+	}
+
+	/**
+	 * Computes the signatures of all vertices in the order of
+	 * {@link Graph#vertices()}. The signature of a vertex v of degree d is
+	 * stored as the sequence (d, label(v), e_1, l_1, ..., e_d, l_d) of length
+	 * 2d+2, where (e_i, l_i) are the edge label ids and neighbor labels in
+	 * ascending order.
+	 */
+	private int[] signatures(LGraph<Integer, IE> lg) {
+		Graph g = lg.getGraph();
+		IntVertexArray va = toIntVertexArray(g, lg.getVertexLabel());
+		EdgeArray<IE> ea = lg.getEdgeLabel();
+
+		int[] r = new int[2*g.getVertexCount() + 4*g.getEdgeCount()];
+		long[] pairs = new long[16];
+		int k = 0;
+		for (Vertex v : g.vertices()) {
+			int d = 0;
+			for (Edge e : v.edges()) {
+				if (d == pairs.length) pairs = Arrays.copyOf(pairs, 2*d);
+				int el = edgeLabels.getId(ea.get(e));
+				int nl = va.getInt(e.getOppositeVertex(v));
+				pairs[d++] = ((long)el << 32) | (nl & 0xFFFFFFFFL);
+			}
+			Arrays.sort(pairs, 0, d);
+			if (k + 2*d + 2 > r.length) r = Arrays.copyOf(r, Math.max(2*r.length, k + 2*d + 2));
+			r[k++] = d;
+			r[k++] = va.getInt(v);
+			for (int i=0; i<d; i++) {
+				r[k++] = (int)(pairs[i] >>> 32);
+				r[k++] = (int)pairs[i];
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Returns the labels as {@link IntVertexArray}, which is copied only if
+	 * the given labels are stored in a generic vertex array.
+	 */
+	private static IntVertexArray toIntVertexArray(Graph g, VertexArray<Integer> va) {
+		if (va instanceof IntVertexArray) return (IntVertexArray)va;
+		IntVertexArray r = new IntVertexArray(g);
+		for (Vertex v : g.vertices()) {
+			r.setInt(v, va.get(v));
+		}
+		return r;
+	}
+
+	private IntVertexArray compress(Graph g, int[] signatures) {
+		IntVertexArray vaRefined = new IntVertexArray(g);
+		int k = 0;
+		for (Vertex v : g.vertices()) {
+			int end = k + 2*signatures[k] + 2;
+			vaRefined.setInt(v, offset + labelMap.getId(signatures, k, end));
+			k = end;
+		}
+		return vaRefined;
+	}
+
+}
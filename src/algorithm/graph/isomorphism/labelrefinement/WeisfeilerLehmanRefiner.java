@@ -8,6 +8,7 @@ import graph.Graph;
 import graph.Graph.Edge;
 import graph.Graph.Vertex;
 import graph.properties.EdgeArray;
+import graph.properties.IntVertexArray;
 import graph.properties.VertexArray;
 
 /**
@@ -49,6 +50,7 @@ public class WeisfeilerLehmanRefiner<IE> extends IterativeVertexLabelRefiner<Obj
 	@Override
 	protected VertexArray<String> refinementStep(Graph g, VertexArray<? extends Object> va, EdgeArray<IE> ea) {
 		
+		IntVertexArray ia = va instanceof IntVertexArray ? (IntVertexArray)va : null;
 		VertexArray<String> vaRefined = new VertexArray<String>(g);
 		for (Vertex v : g.vertices()) {
 			
@@ -56,14 +58,14 @@ public class WeisfeilerLehmanRefiner<IE> extends IterativeVertexLabelRefiner<Obj
 			ArrayList<String> neighborLabels = new ArrayList<String>(v.getDegree());
 			for (Edge e : v.edges()) {
 				Vertex w = e.getOppositeVertex(v);
-				neighborLabels.add(ea.get(e).toString()+DELIMITER+va.get(w).toString());
+				neighborLabels.add(ea.get(e).toString()+DELIMITER+(ia != null ? Integer.toString(ia.getInt(w)) : va.get(w).toString()));
 			}
 			
 			// 2. sorting 
 			Collections.sort(neighborLabels); // TODO in theory radix sort should be better here
 			// string concatenation
 			StringBuilder sb = new StringBuilder();
-			sb.append(va.get(v).toString());
+			sb.append(ia != null ? Integer.toString(ia.getInt(v)) : va.get(v).toString());
 			sb.append(DELIMITER);
 			for (String s : neighborLabels) {
 				sb.append(PAIR_BEGIN);
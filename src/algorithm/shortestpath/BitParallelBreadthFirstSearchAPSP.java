@@ -0,0 +1,89 @@
+package algorithm.shortestpath;
+
+import java.util.Arrays;
+
+import graph.Graph;
+
+/**
+ * Computes all pair shortest paths in unweighted graphs by breadth-first
+ * searches from 64 sources simultaneously. Each vertex stores the sources
+ * that have reached it and the sources in whose current level it lies as
+ * bits of a long, such that a single pass over the edges advances all 64
+ * searches by one level. The runtime is O(|V|/64 * d(|V|+|E|)), where d is
+ * the maximum eccentricity of a source, which is favorable over
+ * {@link BreadthFirstSearchAPSP} for graphs with small diameter. If the
+ * searches of a batch exceed {@link #MAX_DEPTH} levels, the remaining
+ * sources are processed by ordinary BFS.
+ * Unreachable vertices have distance Integer.MAX_VALUE.
+ *
+ * Note: The vertex indices of the graph must be 0, ..., |V|-1.
+ */
+public class BitParallelBreadthFirstSearchAPSP extends BreadthFirstSearchAPSP {
+
+	/**
+	 * Maximum number of levels of a batch for which the bit-parallel
+	 * search is continued with the next batch.
+	 */
+	public static final int MAX_DEPTH = 32;
+
+	@Override
+	public void visitShortestPaths(Graph g, RowVisitor visitor) {
+		int n = g.getVertexCount();
+		int[] start = new int[n+1];
+		int[] adj = adjacency(g, start);
+		// distances from the sources of the current batch
+		int[] dist = new int[Math.min(64, n)*n];
+
+		long[] visited = new long[n];
+		long[] frontier = new long[n];
+		long[] next = new long[n];
+		int depth = 0;
+		for (int s0=0; s0<n; s0+=64) {
+			if (depth > MAX_DEPTH) {
+				visitShortestPaths(start, adj, s0, visitor);
+				return;
+			}
+			int batch = Math.min(64, n-s0);
+			Arrays.fill(dist, Integer.MAX_VALUE);
+			Arrays.fill(visited, 0);
+			Arrays.fill(frontier, 0);
+			for (int b=0; b<batch; b++) {
+				visited[s0+b] = 1L << b;
+				frontier[s0+b] = 1L << b;
+				dist[b*n+s0+b] = 0;
+			}
+			for (int d=1; ; d++) {
+				// push the frontier of each vertex to its neighbors
+				boolean active = false;
+				for (int w=0; w<n; w++) {
+					long f = frontier[w];
+					if (f == 0) continue;
+					for (int p=start[w]; p<start[w+1]; p++) {
+						next[adj[p]] |= f;
+					}
+				}
+				for (int x=0; x<n; x++) {
+					long f = next[x] & ~visited[x];
+					next[x] = 0;
+					frontier[x] = f;
+					if (f == 0) continue;
+					active = true;
+					visited[x] |= f;
+					while (f != 0) {
+						int b = Long.numberOfTrailingZeros(f);
+						dist[b*n+x] = d;
+						f &= f-1;
+					}
+				}
+				if (!active) {
+					depth = d-1;
+					break;
+				}
+			}
+			for (int b=0; b<batch; b++) {
+				visitor.visit(s0+b, dist, b*n);
+			}
+		}
+	}
+
+}
@@ -1,55 +1,127 @@
 package algorithm.shortestpath;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 
-import datastructure.FullMatrix;
-import datastructure.Matrix;
+import datastructure.IntMatrix;
+import graph.CSRGraph;
 import graph.Graph;
 import graph.Graph.Vertex;
 import graph.properties.EdgeProperty;
 
+/**
+ * Computes all pair shortest paths in unweighted graphs by a breadth-first
+ * search from each vertex; runtime O(|V|(|V|+|E|)). The adjacency lists are
+ * copied to int arrays once and a single int array is used as queue for
+ * all searches. Unreachable vertices have distance Integer.MAX_VALUE.
+ *
+ * Note: The vertex indices of the graph must be 0, ..., |V|-1.
+ *
+ * @see BitParallelBreadthFirstSearchAPSP
+ */
 public class BreadthFirstSearchAPSP implements AllPairShortestPath {
 
+	/**
+	 * Receives the distances from a single source vertex.
+	 */
+	public interface RowVisitor {
+
+		/**
+		 * @param source the index of the source vertex
+		 * @param dist the distance to the vertex with index v is stored at
+		 * dist[offset+v]; the array is reused after this method returns
+		 * @param offset position of the distance to the first vertex
+		 */
+		public void visit(int source, int[] dist, int offset);
+	}
+
 	@Override
-	public Matrix<Integer> computeShortestPaths(Graph g) {
-		
+	public IntMatrix computeShortestPaths(Graph g) {
 		int n = g.getVertexCount();
-		Matrix<Integer> dist = new FullMatrix<Integer>(n, n);
-		dist.fill(Integer.MAX_VALUE);
-
-		for (Vertex v : g.vertices()) {
-			LinkedList<Vertex> level = new LinkedList<>();
-			LinkedList<Vertex> nextLevel = new LinkedList<>();
-			boolean[] visited = new boolean[n];
-			int distance = 0;
-			level.add(v);
-			visited[v.getIndex()] = true;
-			while (!level.isEmpty()) {
-				while (!level.isEmpty()) {
-					Vertex w = level.pop();
-					dist.set(v.getIndex(), w.getIndex(), distance);
-					for (Vertex x : w.neighbors()) {
-						if (!visited[x.getIndex()]) {
-							nextLevel.add(x);
-							visited[x.getIndex()] = true;
-						}
+		IntMatrix distMatrix = new IntMatrix(n, n);
+		int[] data = distMatrix.getData();
+		visitShortestPaths(g, (s, dist, offset) -> System.arraycopy(dist, offset, data, s*n, n));
+		return distMatrix;
+	}
+
+	/**
+	 * Computes the distances from each vertex and passes them to the
+	 * visitor without storing the complete distance matrix. The sources
+	 * are visited in ascending order of their indices.
+	 * @param g the graph
+	 * @param visitor the visitor
+	 */
+	public void visitShortestPaths(Graph g, RowVisitor visitor) {
+		int n = g.getVertexCount();
+		int[] start = new int[n+1];
+		int[] adj = adjacency(g, start);
+		visitShortestPaths(start, adj, 0, visitor);
+	}
+
+	/**
+	 * Performs a BFS from each of the vertices from, ..., n-1.
+	 * @see #adjacency(Graph, int[])
+	 */
+	void visitShortestPaths(int[] start, int[] adj, int from, RowVisitor visitor) {
+		int n = start.length-1;
+		int[] dist = new int[n];
+
+		int[] queue = new int[n];
+		for (int s=from; s<n; s++) {
+			Arrays.fill(dist, Integer.MAX_VALUE);
+			int head = 0, tail = 0;
+			queue[tail++] = s;
+			dist[s] = 0;
+			while (head < tail) {
+				int w = queue[head++];
+				int d = dist[w] + 1;
+				for (int p=start[w]; p<start[w+1]; p++) {
+					int x = adj[p];
+					if (dist[x] == Integer.MAX_VALUE) {
+						dist[x] = d;
+						queue[tail++] = x;
 					}
 				}
-				// swap
-				LinkedList<Vertex> tmp = level;
-				level = nextLevel;
-				nextLevel = tmp;
-				distance++;
 			}
+			visitor.visit(s, dist, 0);
 		}
-		
-		return dist;
 	}
-	
 
 	@Override
-	public Matrix<Integer> computeShortestPaths(Graph g, EdgeProperty<Integer> weights) {
+	public IntMatrix computeShortestPaths(Graph g, EdgeProperty<Integer> weights) {
 		throw new UnsupportedOperationException("BFS does not support weights for shortest path computation.");
 	}
 
+	/**
+	 * Copies the adjacency lists given by {@link Vertex#neighbors()} to an
+	 * int array, where the neighbors of the vertex with index v are stored
+	 * at the positions start[v] to start[v+1]-1.
+	 * @param g the graph
+	 * @param start array of length |V|+1, which is filled by this method
+	 * @return the neighbor indices
+	 */
+	static int[] adjacency(Graph g, int[] start) {
+		int n = g.getVertexCount();
+		if (g instanceof CSRGraph && n > 0) {
+			CSRGraph csr = (CSRGraph)g;
+			int[] adj = new int[csr.getAdjacencyEnd(n-1)];
+			for (int v=0; v<n; v++) {
+				start[v+1] = csr.getAdjacencyEnd(v);
+				for (int p=csr.getAdjacencyStart(v); p<start[v+1]; p++) {
+					adj[p] = csr.getAdjacentVertex(p);
+				}
+			}
+			return adj;
+		}
+		int[] adj = new int[2*g.getEdgeCount()];
+		int k = 0;
+		for (int v=0; v<n; v++) {
+			for (Vertex w : g.getVertex(v).neighbors()) {
+				if (k == adj.length) adj = Arrays.copyOf(adj, 2*k+1);
+				adj[k++] = w.getIndex();
+			}
+			start[v+1] = k;
+		}
+		return adj;
+	}
+
 }
@@ -1,60 +1,189 @@
 package algorithm.shortestpath;
 
-import datastructure.FullMatrix;
-import datastructure.Matrix;
+import java.util.concurrent.RecursiveAction;
+
+import datastructure.IntMatrix;
 import graph.Digraph;
 import graph.Digraph.DiEdge;
 import graph.Graph;
 import graph.Graph.Edge;
 import graph.properties.EdgeProperty;
+import util.concurrent.ParallelTools;
 
 /**
  * Implements the Floyd-Warshall algorithm; runtime O(|V|^3).
  * 
+ * Graphs with more than {@link #BLOCK_SIZE} vertices are processed by the
+ * blocked algorithm, which updates the distance matrix tile by tile for
+ * better cache usage and processes independent tiles in parallel. For
+ * undirected graphs only the tiles on and above the diagonal are computed
+ * and mirrored.
+ * 
  * @author kriege
  *
  */
-// TODO optimize for undirected graph, e.g. using symmetric matrix
 public class FloydWarshallAPSP implements AllPairShortestPath {
 
+	/**
+	 * Number of rows and columns of a tile of the blocked algorithm.
+	 */
+	public static final int BLOCK_SIZE = 64;
+
 	
-	public Matrix<Integer> computeShortestPaths(Graph g) {
-		Matrix<Integer> dist = createInitialMatrix(g, null);
+	public IntMatrix computeShortestPaths(Graph g) {
+		IntMatrix dist = createInitialMatrix(g, null);
 		return floydWarshall(dist, g);
 	}
 
-	public Matrix<Integer> computeShortestPaths(Graph g, EdgeProperty<Integer> weights) {
-		Matrix<Integer> dist = createInitialMatrix(g, weights);
+	public IntMatrix computeShortestPaths(Graph g, EdgeProperty<Integer> weights) {
+		IntMatrix dist = createInitialMatrix(g, weights);
 		return floydWarshall(dist, g);
 	}
 
 	
-	private Matrix<Integer> floydWarshall(Matrix<Integer> dist, Graph g) {
+	private IntMatrix floydWarshall(IntMatrix dist, Graph g) {
 		int n = g.getVertexCount();
-		for (int k=0; k<n; k++)
-			for (int i=0; i<n; i++)
-				for (int j=0; j<n; j++)
-					if (dist.get(i, k)==Integer.MAX_VALUE || dist.get(k, j)==Integer.MAX_VALUE)
-						continue;
-					else
-						dist.set(i, j, Math.min(dist.get(i, j), dist.get(i, k)+dist.get(k, j)));		
-		
+		int[] d = dist.getData();
+		if (n <= BLOCK_SIZE) {
+			update(d, n, 0, n, 0, n, 0, n);
+			return dist;
+		}
+
+		// blocked algorithm: in the round of the k-th tile row and column the
+		// diagonal tile is updated first, then the tiles in its row and column
+		// and finally all other tiles, which are independent within each phase
+		boolean symmetric = !(g instanceof Digraph);
+		int b = BLOCK_SIZE;
+		int tiles = (n + b - 1) / b;
+		int[] phase2 = new int[2*2*tiles];
+		int[] phase3 = new int[2*tiles*tiles];
+		for (int kb=0; kb<tiles; kb++) {
+			int k0 = kb*b, k1 = Math.min(n, k0+b);
+			update(d, n, k0, k1, k0, k1, k0, k1);
+
+			int count = 0;
+			for (int t=0; t<tiles; t++) {
+				if (t == kb) continue;
+				// column tile, the row tile is its mirror image if symmetric
+				phase2[count++] = t;
+				phase2[count++] = kb;
+				if (!symmetric) {
+					phase2[count++] = kb;
+					phase2[count++] = t;
+				}
+			}
+			updateTiles(d, n, phase2, count/2, kb, symmetric);
+
+			count = 0;
+			for (int ib=0; ib<tiles; ib++) {
+				if (ib == kb) continue;
+				for (int jb=symmetric ? ib : 0; jb<tiles; jb++) {
+					if (jb == kb) continue;
+					phase3[count++] = ib;
+					phase3[count++] = jb;
+				}
+			}
+			updateTiles(d, n, phase3, count/2, kb, symmetric);
+		}
+
 		return dist;
 	}
 
+	/**
+	 * Updates the tiles given as pairs of tile row and column using the
+	 * vertices of the k-th tile as intermediate vertices. If symmetric, the
+	 * mirror image of each tile is updated accordingly.
+	 */
+	private static void updateTiles(int[] d, int n, int[] tiles, int count, int kb, boolean symmetric) {
+		if (ParallelTools.isParallel() && count > 1) {
+			ParallelTools.invoke(new TileTask(d, n, tiles, 0, count, kb, symmetric));
+		} else {
+			updateTiles(d, n, tiles, 0, count, kb, symmetric);
+		}
+	}
+
+	private static void updateTiles(int[] d, int n, int[] tiles, int lo, int hi, int kb, boolean symmetric) {
+		int b = BLOCK_SIZE;
+		int k0 = kb*b, k1 = Math.min(n, k0+b);
+		for (int t=lo; t<hi; t++) {
+			int i0 = tiles[2*t]*b, i1 = Math.min(n, i0+b);
+			int j0 = tiles[2*t+1]*b, j1 = Math.min(n, j0+b);
+			update(d, n, i0, i1, j0, j1, k0, k1);
+			if (symmetric && i0 != j0) {
+				for (int i=i0; i<i1; i++) {
+					for (int j=j0; j<j1; j++) {
+						d[j*n+i] = d[i*n+j];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the distances of the vertices [i0,i1) to [j0,j1) using the
+	 * vertices [k0,k1) as intermediate vertices.
+	 */
+	private static void update(int[] d, int n, int i0, int i1, int j0, int j1, int k0, int k1) {
+		for (int k=k0; k<k1; k++) {
+			int rowK = k*n;
+			for (int i=i0; i<i1; i++) {
+				int rowI = i*n;
+				int dik = d[rowI+k];
+				if (dik == Integer.MAX_VALUE) continue;
+				for (int j=j0; j<j1; j++) {
+					int dkj = d[rowK+j];
+					if (dkj != Integer.MAX_VALUE && dik+dkj < d[rowI+j]) {
+						d[rowI+j] = dik+dkj;
+					}
+				}
+			}
+		}
+	}
+
+	private static class TileTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] d;
+		private final int n;
+		private final int[] tiles;
+		private final int lo, hi, kb;
+		private final boolean symmetric;
+
+		TileTask(int[] d, int n, int[] tiles, int lo, int hi, int kb, boolean symmetric) {
+			this.d = d;
+			this.n = n;
+			this.tiles = tiles;
+			this.lo = lo;
+			this.hi = hi;
+			this.kb = kb;
+			this.symmetric = symmetric;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new TileTask(d, n, tiles, lo, mid, kb, symmetric), new TileTask(d, n, tiles, mid, hi, kb, symmetric));
+			} else {
+				updateTiles(d, n, tiles, lo, hi, kb, symmetric);
+			}
+		}
+	}
+
 	/**
 	 * Creates initial distance matrices.
 	 * @param g
 	 * @param weights distances; if null all edges are considered to have distance 1
 	 * @return
 	 */
-	private Matrix<Integer> createInitialMatrix(Graph g, EdgeProperty<Integer> weights) {
+	private IntMatrix createInitialMatrix(Graph g, EdgeProperty<Integer> weights) {
 		int n = g.getVertexCount();
-		Matrix<Integer> dist = new FullMatrix<Integer>(n, n);
+		IntMatrix dist = new IntMatrix(n, n);
 		dist.fill(Integer.MAX_VALUE);
 
 		for (int i=0; i<n; i++)
-			dist.set(i, i, 0);
+			dist.setInt(i, i, 0);
 
 		if (weights == null) {
 			if (g instanceof Digraph) {
@@ -62,14 +191,14 @@ public class FloydWarshallAPSP implements AllPairShortestPath {
 				for (DiEdge e : dg.edges()) {
 					int iU = e.getSourceVertex().getIndex();
 					int iV = e.getTargetVertex().getIndex();
-					dist.set(iU, iV, 1);
+					dist.setInt(iU, iV, 1);
 				}
 			} else {
 				for (Edge e : g.edges()) {
 					int iU = e.getFirstVertex().getIndex();
 					int iV = e.getSecondVertex().getIndex();
-					dist.set(iU, iV, 1);
-					dist.set(iV, iU, 1);
+					dist.setInt(iU, iV, 1);
+					dist.setInt(iV, iU, 1);
 				}
 			}
 		} else {
@@ -2,7 +2,7 @@ package algorithm.shortestpath;
 
 import java.util.LinkedList;
 
-import datastructure.Matrix;
+import datastructure.IntMatrix;
 import datastructure.Pair;
 import graph.AdjMatrixGraph;
 import graph.ConnectivityTools;
@@ -13,6 +13,7 @@ import graph.Graph.Vertex;
 import graph.LGraph;
 import graph.properties.EdgeArray;
 import graph.properties.EdgeProperty;
+import graph.properties.IntEdgeArray;
 import graph.properties.VertexArray;
 
 /**
@@ -25,20 +26,37 @@ import graph.properties.VertexArray;
  */
 public class SPTools {
 	
-	private static AllPairShortestPath apspModule = new AllPairShortestPath() {
-		FloydWarshallAPSP fw = new FloydWarshallAPSP();
-		BreadthFirstSearchAPSP bfs = new BreadthFirstSearchAPSP();
-				
-		@Override
-		public Matrix<Integer> computeShortestPaths(Graph g, EdgeProperty<Integer> weights) {
+	private static FloydWarshallAPSP fw = new FloydWarshallAPSP();
+	private static BreadthFirstSearchAPSP bfs = new BitParallelBreadthFirstSearchAPSP();
+
+	/**
+	 * Computes all pair shortest paths. Unweighted graphs are processed by
+	 * {@link BitParallelBreadthFirstSearchAPSP}, weighted graphs by
+	 * {@link FloydWarshallAPSP}.
+	 * @param g the graph
+	 * @param weights edge weights or null
+	 * @return the distance matrix indexed by the vertex indices, 
+	 * unreachable vertices have distance Integer.MAX_VALUE
+	 */
+	public static IntMatrix computeShortestPaths(Graph g, EdgeProperty<Integer> weights) {
+		if (weights != null) {
 			return fw.computeShortestPaths(g, weights);
-		}
-		
-		@Override
-		public Matrix<Integer> computeShortestPaths(Graph g) {
+		} else {
 			return bfs.computeShortestPaths(g);
 		}
-	};
+	}
+
+	/**
+	 * Computes all pair shortest paths in an unweighted graph and passes
+	 * the distances from each vertex to the visitor, such that the
+	 * complete distance matrix is never stored.
+	 * @param g the graph
+	 * @param visitor the visitor
+	 * @see #computeShortestPaths(Graph, EdgeProperty)
+	 */
+	public static void visitShortestPaths(Graph g, BreadthFirstSearchAPSP.RowVisitor visitor) {
+		bfs.visitShortestPaths(g, visitor);
+	}
 	
 	/**
 	 * Note: vertex labels will not be cloned; the object is the same as stored in lg!
@@ -50,19 +68,20 @@ public class SPTools {
 		if (g instanceof Digraph) {
 			throw new UnsupportedOperationException("This opertion is currently not supported for directed graphs.");
 		} else {
-			Matrix<Integer> dist = apspModule.computeShortestPaths(g);
+			IntMatrix dist = computeShortestPaths(g, null);
 			int n = g.getVertexCount();
 			AdjMatrixGraph r = new AdjMatrixGraph(n, n*(n-1));
-			EdgeArray<Integer> rl = new EdgeArray<Integer>(r,n*(n-1));
+			IntEdgeArray rl = new IntEdgeArray(r,n*(n-1));
 			for (int i=0; i<g.getVertexCount(); i++) {
 				Vertex v = r.createVertex();
 				assert(v.getIndex() == i);
 			}
 			for (int i=0; i<n; i++) {
 				for (int j=i+1; j<n; j++) {
-					if (dist.get(i, j) != Integer.MAX_VALUE) {
+					int d = dist.getInt(i, j);
+					if (d != Integer.MAX_VALUE) {
 						Edge e = r.createEdge(r.getVertex(i), r.getVertex(j));
-						rl.set(e, dist.get(i, j));
+						rl.setInt(e, d);
 					}
 				}
 			}
@@ -1,5 +1,8 @@
 package benchmark.dataset;
 
+import java.util.Objects;
+
+import graph.Graph;
 import graph.Graph.Edge;
 import graph.Graph.Vertex;
 import graph.LGraph;
@@ -50,6 +53,47 @@ public class SDataset extends LGDataset<LGraph<String, String>> {
 		}
 	}
 	
+	/**
+	 * Computes fingerprints of the prefixes of the data set, which change
+	 * with high probability if a graph, its labels or class label is 
+	 * modified or the graphs are reordered. The fingerprints do not depend
+	 * on the process and allow to check whether results stored for the 
+	 * first graphs still belong to them.
+	 * @return r[i] is the fingerprint of the first i graphs, r[0] = 0
+	 */
+	public long[] getPrefixFingerprints() {
+		long[] r = new long[size()+1];
+		for (int i=0; i<size(); i++) {
+			LGraph<String, String> lg = get(i);
+			Graph g = lg.getGraph();
+			VertexArray<String> va = lg.getVertexLabel();
+			EdgeArray<String> ea = lg.getEdgeLabel();
+			long h = mix(mix(r[i], g.getVertexCount()), g.getEdgeCount());
+			for (Vertex v : g.vertices()) {
+				h = mix(h, Objects.hashCode(va.get(v)));
+			}
+			for (Edge e : g.edges()) {
+				h = mix(mix(h, e.getFirstVertex().getIndex()), e.getSecondVertex().getIndex());
+				h = mix(h, Objects.hashCode(ea.get(e)));
+			}
+			r[i+1] = mix(h, getClassLabel(lg).hashCode());
+		}
+		return r;
+	}
+	
+	/**
+	 * @return the fingerprint of all graphs
+	 * @see #getPrefixFingerprints()
+	 */
+	public long getFingerprint() {
+		return getPrefixFingerprints()[size()];
+	}
+	
+	private static long mix(long h, int x) {
+		h = (h ^ x) * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 29);
+	}
+	
 	public void labelVerticesByDegree() {
 		for (LGraph<String, String> lg : this) {
 			VertexArray<String> va = lg.getVertexLabel();
@@ -0,0 +1,255 @@
+package cli;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal reader and writer for the JSON messages of {@link KServe}.
+ * Objects are parsed to maps, arrays to lists, integral numbers to Long,
+ * other numbers to Double. Values nested deeper than {@link #MAX_DEPTH}
+ * levels are rejected.
+ */
+class Json {
+
+	/**
+	 * The maximum number of nested objects and arrays, which bounds the
+	 * recursion depth of the parser.
+	 */
+	static final int MAX_DEPTH = 512;
+
+	private final String s;
+	private int pos;
+	private int depth;
+
+	private Json(String s) {
+		this.s = s;
+	}
+
+	/**
+	 * Parses a JSON value.
+	 * @throws IllegalArgumentException if the string is not valid JSON or
+	 * nested too deeply
+	 */
+	static Object parse(String s) throws IllegalArgumentException {
+		Json p = new Json(s);
+		Object r = p.value();
+		p.skipWhitespace();
+		if (p.pos != s.length()) throw p.error("Unexpected trailing characters");
+		return r;
+	}
+
+	private Object value() {
+		skipWhitespace();
+		if (pos == s.length()) throw error("Unexpected end of input");
+		char c = s.charAt(pos);
+		switch (c) {
+			case '{' :
+			case '[' :
+				if (++depth > MAX_DEPTH) throw error("Nesting exceeds "+MAX_DEPTH+" levels");
+				Object r = c == '{' ? object() : array();
+				depth--;
+				return r;
+			case '"' : return string();
+			case 't' : return literal("true", Boolean.TRUE);
+			case 'f' : return literal("false", Boolean.FALSE);
+			case 'n' : return literal("null", null);
+			default  : return number();
+		}
+	}
+
+	private Map<String, Object> object() {
+		LinkedHashMap<String, Object> r = new LinkedHashMap<>();
+		pos++;
+		skipWhitespace();
+		if (peek() == '}') {
+			pos++;
+			return r;
+		}
+		while (true) {
+			skipWhitespace();
+			if (peek() != '"') throw error("Expected key");
+			String key = string();
+			skipWhitespace();
+			expect(':');
+			r.put(key, value());
+			skipWhitespace();
+			if (peek() == ',') {
+				pos++;
+			} else {
+				expect('}');
+				return r;
+			}
+		}
+	}
+
+	private List<Object> array() {
+		ArrayList<Object> r = new ArrayList<>();
+		pos++;
+		skipWhitespace();
+		if (peek() == ']') {
+			pos++;
+			return r;
+		}
+		while (true) {
+			r.add(value());
+			skipWhitespace();
+			if (peek() == ',') {
+				pos++;
+			} else {
+				expect(']');
+				return r;
+			}
+		}
+	}
+
+	private String string() {
+		StringBuilder sb = new StringBuilder();
+		pos++;
+		while (true) {
+			if (pos == s.length()) throw error("Unterminated string");
+			char c = s.charAt(pos++);
+			if (c == '"') return sb.toString();
+			if (c != '\\') {
+				sb.append(c);
+				continue;
+			}
+			if (pos == s.length()) throw error("Unterminated string");
+			c = s.charAt(pos++);
+			switch (c) {
+				case 'b' : sb.append('\b'); break;
+				case 'f' : sb.append('\f'); break;
+				case 'n' : sb.append('\n'); break;
+				case 'r' : sb.append('\r'); break;
+				case 't' : sb.append('\t'); break;
+				case 'u' :
+					if (pos+4 > s.length()) throw error("Invalid escape");
+					try {
+						sb.append((char)Integer.parseInt(s.substring(pos, pos+4), 16));
+					} catch (NumberFormatException e) {
+						throw error("Invalid escape");
+					}
+					pos += 4;
+					break;
+				default  : sb.append(c);
+			}
+		}
+	}
+
+	private Object number() {
+		int start = pos;
+		boolean integral = true;
+		while (pos < s.length()) {
+			char c = s.charAt(pos);
+			if (c == '.' || c == 'e' || c == 'E') {
+				integral = false;
+			} else if (!(c >= '0' && c <= '9' || c == '-' || c == '+')) {
+				break;
+			}
+			pos++;
+		}
+		String t = s.substring(start, pos);
+		try {
+			return integral ? (Object)Long.valueOf(t) : (Object)Double.valueOf(t);
+		} catch (NumberFormatException e) {
+			pos = start;
+			throw error("Invalid value");
+		}
+	}
+
+	private Object literal(String l, Object value) {
+		if (!s.startsWith(l, pos)) throw error("Invalid value");
+		pos += l.length();
+		return value;
+	}
+
+	private char peek() {
+		if (pos == s.length()) throw error("Unexpected end of input");
+		return s.charAt(pos);
+	}
+
+	private void expect(char c) {
+		if (peek() != c) throw error("Expected '"+c+"'");
+		pos++;
+	}
+
+	private void skipWhitespace() {
+		while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message+" at position "+pos+".");
+	}
+
+	/**
+	 * Appends the JSON representation of a value, which is a map, list,
+	 * string, number, boolean or null. Integral doubles are written without
+	 * fraction.
+	 */
+	static void write(StringBuilder sb, Object value) {
+		if (value == null) {
+			sb.append("null");
+		} else if (value instanceof String) {
+			quote(sb, (String)value);
+		} else if (value instanceof Double || value instanceof Float) {
+			write(sb, ((Number)value).doubleValue());
+		} else if (value instanceof Number || value instanceof Boolean) {
+			sb.append(value);
+		} else if (value instanceof Map) {
+			sb.append('{');
+			boolean first = true;
+			for (Map.Entry<?, ?> e : ((Map<?, ?>)value).entrySet()) {
+				if (!first) sb.append(',');
+				first = false;
+				quote(sb, String.valueOf(e.getKey()));
+				sb.append(':');
+				write(sb, e.getValue());
+			}
+			sb.append('}');
+		} else if (value instanceof List) {
+			sb.append('[');
+			boolean first = true;
+			for (Object o : (List<?>)value) {
+				if (!first) sb.append(',');
+				first = false;
+				write(sb, o);
+			}
+			sb.append(']');
+		} else {
+			quote(sb, value.toString());
+		}
+	}
+
+	static void write(StringBuilder sb, double d) {
+		if (Double.isNaN(d) || Double.isInfinite(d)) {
+			sb.append("null");
+		} else if (d == Math.rint(d) && Math.abs(d) < 1e15) {
+			sb.append((long)d);
+		} else {
+			sb.append(d);
+		}
+	}
+
+	static void quote(StringBuilder sb, String s) {
+		sb.append('"');
+		for (int i=0; i<s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '"'  : sb.append("\\\""); break;
+				case '\\' : sb.append("\\\\"); break;
+				case '\n' : sb.append("\\n"); break;
+				case '\r' : sb.append("\\r"); break;
+				case '\t' : sb.append("\\t"); break;
+				default   :
+					if (c < 0x20) {
+						sb.append(String.format("\\u%04x", (int)c));
+					} else {
+						sb.append(c);
+					}
+			}
+		}
+		sb.append('"');
+	}
+
+}
@@ -15,7 +15,8 @@ import com.beust.jcommander.converters.IParameterSplitter;
 
 import benchmark.dataset.AttrDataset;
 import benchmark.dataset.SDataset;
-import io.AttributedGraphSetReader;
+import io.MappedGraphSetReader;
+import io.SDatasetCache;
 
 public class KCommon {
 
@@ -85,11 +86,40 @@ public class KCommon {
 	static AttrDataset load(String name, File dataDir) throws IOException {
 		String data = name+"/"+name;
 		AttrDataset ds = new AttrDataset(name);
-		AttributedGraphSetReader agr = new AttributedGraphSetReader();
+		MappedGraphSetReader agr = new MappedGraphSetReader();
 		ds.addAll(agr.read(dataDir.getAbsolutePath()+"/"+data));
 		return ds;
 	}
 
+	/**
+	 * Loads the data set with simple labels, see {@link AttrDataset#getSDataset()}.
+	 * If enabled, the data set is read from a binary cache stored next to the data
+	 * files, which is created or updated if missing, outdated or unreadable.
+	 * @see SDatasetCache
+	 */
+	static SDataset loadSDataset(String name, File dataDir, boolean useCache) throws IOException {
+		if (!useCache) {
+			return load(name, dataDir).getSDataset();
+		}
+		SDatasetCache cache = new SDatasetCache(dataDir.getAbsolutePath()+"/"+name+"/"+name);
+		SDataset ds = null;
+		try {
+			ds = cache.read("S"+name);
+		} catch (IOException e) {
+			System.out.println("Warning: Could not read cache file "+cache.getFile()+": "+e.getMessage());
+			cache.getFile().delete();
+		}
+		if (ds == null) {
+			ds = load(name, dataDir).getSDataset();
+			try {
+				cache.write(ds);
+			} catch (IOException e) {
+				System.out.println("Warning: Could not write cache file "+cache.getFile()+": "+e.getMessage());
+			}
+		}
+		return ds;
+	}
+
 	static void runCommand(String command, boolean verbose) throws IOException, InterruptedException {
 		Process proc = Runtime.getRuntime().exec(command);
 		BufferedReader br= new BufferedReader(new InputStreamReader(proc.getErrorStream()));
@@ -4,6 +4,8 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -18,17 +20,25 @@ import benchmark.dataset.AttrDataset;
 import benchmark.dataset.SDataset;
 import cli.KCommon.RangeConverter;
 import cli.KCommon.RangeSplitter;
+import comparison.GramComputation.GramConsumer;
 import comparison.kernel.ExplicitMappingKernel;
+import comparison.kernel.ExplicitMappingKernel.UnsupportedMappingException;
 import comparison.kernel.Kernel;
 import comparison.kernel.basic.DiracKernel;
+import comparison.kernel.graph.ConnectedGraphletKernel;
 import comparison.kernel.graph.EdgeKernelUnorientedExact;
 import comparison.kernel.graph.GraphletKernel;
 import comparison.kernel.graph.OptimalAssignmentGraphKernel;
 import comparison.kernel.graph.ShortestPathKernel;
 import comparison.kernel.graph.VertexKernel;
+import comparison.kernel.graph.WeisfeilerLehmanGramState;
 import comparison.kernel.graph.WeisfeilerLehmanSubtreeKernel;
+import concepts.TransformationTools;
+import graph.CSRGraph;
 import graph.LGraph;
+import util.concurrent.ParallelTools;
 import util.kernel.GramUtil;
+import util.kernel.TiledGramFile;
 
 
 public class KKernel {
@@ -55,6 +65,29 @@ public class KKernel {
 		
 		@Parameter(names = { "-a", "--all" }, description = "Compute kernel for all data sets in the data directory")
 		private boolean all;
+		
+		@Parameter(names = { "-t", "--threads" }, description = "Number of threads used for the computation (default: number of processors)")
+		Integer threads;
+		
+		@Parameter(names = { "-f", "--format" }, description = "Format of the gram files: libsvm, binary (double precision) "
+				+ "or binary32 (single precision), binary files store the upper triangle only; tiled and tiled32 "
+				+ "store the upper triangle in tiles written as they are computed, which allows gram matrices "
+				+ "exceeding the memory and resuming an interrupted computation")
+		String format = "libsvm";
+
+		@Parameter(names = { "--block-size" }, description = "Number of rows and columns of a tile of the formats tiled and tiled32")
+		int blockSize = TiledGramFile.DEFAULT_BLOCK_SIZE;
+		
+		@Parameter(names = { "--no-cache" }, description = "Do not read or write the binary cache of the data sets")
+		boolean noCache = false;
+		
+		@Parameter(names = { "--compact" }, description = "Store the graphs in compact read-only form (CSR)")
+		boolean compact = false;
+
+		@Parameter(names = { "--incremental" }, description = "Extend the binary gram files by the graphs added to the data sets "
+				+ "since the last run instead of recomputing them, the kernel state is stored in the gram directory "
+				+ "(wls, wloa, vl and vloa only)")
+		boolean incremental = false;
 
 	}
 	
@@ -62,6 +95,10 @@ public class KKernel {
 		
 		abstract SDataset preprocessDataset(AttrDataset ds);
 		
+		SDataset loadDataset(String name, File dataDir, boolean useCache) throws IOException {
+			return preprocessDataset(KCommon.load(name, dataDir));
+		}
+		
 		abstract ArrayList<Kernel<LGraph<String, String>>> getKernels();
 	}
 	
@@ -70,6 +107,11 @@ public class KKernel {
 		SDataset preprocessDataset(AttrDataset ds) {
 			return ds.getSDataset();
 		}
+		
+		@Override
+		SDataset loadDataset(String name, File dataDir, boolean useCache) throws IOException {
+			return KCommon.loadSDataset(name, dataDir, useCache);
+		}
 	}
 	
 	public static abstract class CommandWL extends SimpleGraphKernelConfig {
@@ -81,6 +123,11 @@ public class KKernel {
 				converter = RangeConverter.class)
 		List<Integer> iterations = Arrays.asList(0,1,2,3,4,5,6,7);
 
+		@Parameter(names = { "--separate" }, 
+				description = "Compute the kernel for each height by a separate refinement "
+						+ "instead of a single refinement up to the maximum height")
+		boolean separate = false;
+
 		ArrayList<Kernel<LGraph<String, String>>> getKernels() {
 			ArrayList<Kernel<LGraph<String, String>>> kernels = new ArrayList<>();
 			for (Number h : iterations) {
@@ -88,8 +135,35 @@ public class KKernel {
 			}
 			return kernels;
 		}
+		
+		/**
+		 * Computes the gram matrices for all heights by a single refinement up to the
+		 * maximum height. Each matrix is passed to the consumer as soon as it is
+		 * available and may be modified afterwards.
+		 * @param ds the data set
+		 * @param implicit true iff computation by explicit feature maps is not allowed
+		 * @param c receives the index of the kernel in {@link #getKernels()} and its
+		 * gram matrix
+		 */
+		void computeAllHeights(SDataset ds, boolean implicit, GramConsumer c) {
+			int[] heights = iterations.stream().mapToInt(Number::intValue).sorted().distinct().toArray();
+			if (heights.length == 0) return;
+			if (heights[0] < 0) {
+				throw new ParameterException("The height must not be negative.");
+			}
+			computeByHeight(heights, ds, implicit, (h, gram) -> {
+				for (int i=0; i<iterations.size(); i++) {
+					if (iterations.get(i).intValue() == h) c.accept(i, gram);
+				}
+			});
+		}
 
 		abstract Kernel<LGraph<String, String>> getKernel(int height);
+		
+		/**
+		 * Computes the gram matrices for the given heights in ascending order.
+		 */
+		abstract void computeByHeight(int[] heights, SDataset ds, boolean implicit, GramConsumer c);
 	}
 	
 	@Parameters(commandDescription = "Compute the Weisfeiler-Lehman subtree kernel.")
@@ -97,6 +171,16 @@ public class KKernel {
 		Kernel<LGraph<String, String>> getKernel(int height) {
 			return new WeisfeilerLehmanSubtreeKernel<>(height);
 		}
+
+		@Override
+		void computeByHeight(int[] heights, SDataset ds, boolean implicit, GramConsumer c) {
+			WeisfeilerLehmanSubtreeKernel<String, String> k = new WeisfeilerLehmanSubtreeKernel<>(heights[heights.length-1]);
+			if (implicit) {
+				k.computeByHeight(ds, heights, c);
+			} else {
+				k.computeExplicitByHeight(ds, heights, c);
+			}
+		}
 	}
 
 	@Parameters(commandDescription = "Compute the shortest path kernel, where path length and vertex labels are compared by the "
@@ -123,6 +207,69 @@ public class KKernel {
 		}
 	}
 
+	public static abstract class CommandGraphlet extends SimpleGraphKernelConfig {
+
+		@Parameter(names = { "-s", "--samples" }, 
+				description = "Number of graphlets sampled per graph to estimate the counts (default: 0, i.e., "
+						+ "exact enumeration of all graphlets)")
+		int samples = 0;
+
+		@Parameter(names = { "--seed" }, description = "Seed of the random number generator used for sampling")
+		long seed = 0;
+
+		abstract int getSize();
+
+		@Override
+		ArrayList<Kernel<LGraph<String, String>>> getKernels() {
+			if (samples < 0) {
+				throw new ParameterException("The number of samples must not be negative.");
+			}
+			ArrayList<Kernel<LGraph<String, String>>> kernels = new ArrayList<>();
+			kernels.add(new ConnectedGraphletKernel<>(getSize(), samples, seed));
+			return kernels;
+		}
+	}
+
+	@Parameters(commandDescription = "Compute the graphlet kernel taking connected induced "
+			+ "subgraphs on four vertices and discrete vertex and edge labels into account.")
+	public static class CommandGL4 extends CommandGraphlet {
+		@Override
+		int getSize() {
+			return 4;
+		}
+	}
+
+	@Parameters(commandDescription = "Compute the graphlet kernel taking connected induced "
+			+ "subgraphs on five vertices and discrete vertex and edge labels into account.")
+	public static class CommandGL5 extends CommandGraphlet {
+		@Override
+		int getSize() {
+			return 5;
+		}
+	}
+
+	@Parameters(commandDescription = "Compute the shortest path optimal assignment kernel, where path length and "
+			+ "vertex labels are compared by the Dirac kernel.")
+	public static class CommandSPOA extends SimpleGraphKernelConfig {
+		@Override
+		ArrayList<Kernel<LGraph<String, String>>> getKernels() {
+			ArrayList<Kernel<LGraph<String, String>>> kernels = new ArrayList<>();
+			kernels.add(new OptimalAssignmentGraphKernel.ShortestPath<String, String>());
+			return kernels;
+		}
+	}
+
+	@Parameters(commandDescription = "Compute the graphlet optimal assignment kernel taking connected induced "
+			+ "subgraphs on three vertices and discrete vertex and edge labels into account.")
+	public static class CommandGL3OA extends SimpleGraphKernelConfig {
+		@Override
+		ArrayList<Kernel<LGraph<String, String>>> getKernels() {
+			ArrayList<Kernel<LGraph<String, String>>> kernels = new ArrayList<>();
+			kernels.add(new OptimalAssignmentGraphKernel.Graphlet<String, String>());
+			return kernels;
+		}
+	}
+
 	@Parameters(commandDescription = "Compute the Weisfeiler-Lehman optimal assignment kernel.")
 	public static class CommandWLOA extends CommandWL {
 
@@ -130,6 +277,12 @@ public class KKernel {
 		Kernel<LGraph<String, String>> getKernel(int height) {
 			return new OptimalAssignmentGraphKernel.WeisfeilerLehmanSubtree<>(height);
 		}
+
+		@Override
+		void computeByHeight(int[] heights, SDataset ds, boolean implicit, GramConsumer c) {
+			new OptimalAssignmentGraphKernel.WeisfeilerLehmanSubtree<String, String>(heights[heights.length-1])
+				.computeByHeight(ds, heights, c);
+		}
 	}
 	
 	@Parameters(commandDescription = "Compute the vertex label kernel.")
@@ -183,7 +336,11 @@ public class KKernel {
 	static CommandWLS wls = new CommandWLS();
 	static CommandSP sp = new CommandSP();
 	static CommandGL3 gl3 = new CommandGL3();
+	static CommandGL4 gl4 = new CommandGL4();
+	static CommandGL5 gl5 = new CommandGL5();
 	static CommandWLOA wloa = new CommandWLOA();
+	static CommandSPOA spoa = new CommandSPOA();
+	static CommandGL3OA gl3oa = new CommandGL3OA();
 	static CommandVL vl = new CommandVL();
 	static CommandVLOA vloa = new CommandVLOA();
 	static CommandELU elu = new CommandELU();
@@ -196,7 +353,11 @@ public class KKernel {
 		jc.addCommand("wls", wls);
 		jc.addCommand("sp", sp);
 		jc.addCommand("gl3", gl3);
+		jc.addCommand("gl4", gl4);
+		jc.addCommand("gl5", gl5);
 		jc.addCommand("wloa", wloa);
+		jc.addCommand("spoa", spoa);
+		jc.addCommand("gl3oa", gl3oa);
 		jc.addCommand("vl", vl);
 		jc.addCommand("vloa", vloa);
 		jc.addCommand("elu", elu);
@@ -218,6 +379,25 @@ public class KKernel {
 	    if (!cm.all && cm.datasets == null) {
 	        throw new ParameterException("No datasets specified.");
 	    }
+	    
+	    if (cm.threads != null) {
+	    	if (cm.threads < 1) {
+	    		throw new ParameterException("The number of threads must be positive.");
+	    	}
+	    	ParallelTools.setThreadCount(cm.threads);
+	    }
+		
+	    if (!Arrays.asList("libsvm", "binary", "binary32", "tiled", "tiled32").contains(cm.format)) {
+	    	throw new ParameterException("Unknown format '"+cm.format+"'.");
+	    }
+	    
+	    if (cm.incremental && !cm.format.startsWith("binary")) {
+	    	throw new ParameterException("Incremental computation requires the format binary or binary32.");
+	    }
+	    
+	    if (cm.blockSize < 1 || cm.blockSize > TiledGramFile.MAX_BLOCK_SIZE) {
+	    	throw new ParameterException("The block size must be between 1 and "+TiledGramFile.MAX_BLOCK_SIZE+".");
+	    }
 		
 		KernelConfig kc = null;
 
@@ -225,7 +405,11 @@ public class KKernel {
 			case "wls"   : kc = wls;    break;
 			case "sp"    : kc = sp;     break;
 			case "gl3"   : kc = gl3;    break;
+			case "gl4"   : kc = gl4;    break;
+			case "gl5"   : kc = gl5;    break;
 			case "wloa"  : kc = wloa;   break;
+			case "spoa"  : kc = spoa;   break;
+			case "gl3oa" : kc = gl3oa;  break;
 			case "vl"    : kc = vl;     break;
 			case "vloa"  : kc = vloa;   break;
 			case "elu"   : kc = elu;    break;			
@@ -239,12 +423,64 @@ public class KKernel {
 		}
 		
 		for (String dName : cm.datasets) {
-			AttrDataset ds = KCommon.load(dName, cm.dataDir);
-			SDataset ds2 = kc.preprocessDataset(ds);
+			SDataset ds2 = kc.loadDataset(dName, cm.dataDir, !cm.noCache);
+			if (cm.compact) {
+				SDataset compact = new SDataset(ds2.getID());
+				compact.addAll(TransformationTools.transformAllParallel(lg -> CSRGraph.copyOf(lg), ds2));
+				ds2 = compact;
+			}
+			
+			if (cm.incremental) {
+				computeIncremental(kc, ds2);
+				System.out.println();
+				continue;
+			}
+			
+			if (cm.format.startsWith("tiled")) {
+				for (Kernel<LGraph<String, String>> k : kc.getKernels()) {
+					System.out.println("Kernel:   "+k.getID());
+					System.out.println("Dataset:  "+ds2.getID()+"  converted from: "+dName);
+					computeTiled(ds2, k);
+					System.out.println();
+				}
+				continue;
+			}
+			
+			if (kc instanceof CommandWL && !((CommandWL)kc).separate) {
+				// compute all heights by a single refinement
+				CommandWL cwl = (CommandWL)kc;
+				ArrayList<Kernel<LGraph<String, String>>> kernels = cwl.getKernels();
+				for (Kernel<LGraph<String, String>> k : kernels) {
+					System.out.println("Kernel:   "+k.getID());
+				}
+				System.out.println("Dataset:  "+ds2.getID()+"  converted from: "+dName);
+				// the running time of a height excludes writing the preceding heights
+				long startTime = System.nanoTime();
+				long[] writeTime = new long[1];
+				SDataset ds = ds2;
+				try {
+					cwl.computeAllHeights(ds, cm.implicit, (i, gram) -> {
+						long writeStart = System.nanoTime();
+						Kernel<LGraph<String, String>> k = kernels.get(i);
+						boolean explicit = k instanceof ExplicitMappingKernel && !cm.implicit;
+						try {
+							writeResult(ds, k, explicit, writeStart - startTime - writeTime[0], gram);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+						writeTime[0] += System.nanoTime() - writeStart;
+					});
+				} catch (UncheckedIOException e) {
+					throw e.getCause();
+				}
+				System.out.println();
+				continue;
+			}
+			
 			for (Kernel<LGraph<String, String>> k : kc.getKernels()) {
 
 				System.out.println("Kernel:   "+k.getID());
-				System.out.println("Dataset:  "+ds2.getID()+"  converted from: "+ds.getID());
+				System.out.println("Dataset:  "+ds2.getID()+"  converted from: "+dName);
 				double[][] gram;
 				boolean explicit = false;
 				long startTime = System.nanoTime();
@@ -259,7 +495,7 @@ public class KKernel {
 					try {
 						gram = emk.computeExplicit(ds2);
 						explicit = true;
-					} catch (IllegalStateException e) {
+					} catch (UnsupportedMappingException e) {
 						System.out.println("Non-explicit computation due to kernel choice!");
 						gram = k.compute(ds2);
 						explicit = false;
@@ -267,20 +503,176 @@ public class KKernel {
 				}
 				long runtime = System.nanoTime() - startTime;
 				
-				// write running time
-				FileWriter fw = new FileWriter(cm.logFile, true);
-				BufferedWriter bw = new BufferedWriter(fw);
-				bw.append(ds2.getID()+"\t"+k.getID()+"\t"+(explicit?"exp":"imp")+"\t"+(double)runtime/1000d/1000+"\n");
-				bw.close();
-
-				// write gram file 
-				String fileName = cm.gramDir.getAbsolutePath()+"/"+ds2.getID()+"__"+k.getID()+".gram";
-				GramUtil.writeLibSVMFile(gram, ds2.getClassLabels(), fileName);
+				writeResult(ds2, k, explicit, runtime, gram);
 				
 				System.out.println();
 			}
 		}
 
 	}
+	
+	/**
+	 * Number of columns of the gram matrices computed and appended at once
+	 * by {@link #computeIncremental(KernelConfig, SDataset)}.
+	 */
+	static int INCREMENTAL_CHUNK_SIZE = 256;
+	
+	/**
+	 * Extends the binary gram files of the WL and vertex label kernels by 
+	 * the graphs added to the data set since the last run. Each file is 
+	 * extended starting from its current dimension, the kernel state of 
+	 * the data set is shared by these kernels and rebuilt if a larger 
+	 * height is required. The state and gram files whose graphs are not the
+	 * first graphs of the data set according to their fingerprints are 
+	 * rebuilt.
+	 */
+	private static void computeIncremental(KernelConfig kc, SDataset ds) throws IOException {
+		int[] heights;
+		boolean assignment;
+		if (kc instanceof CommandWL) {
+			List<Integer> iterations = ((CommandWL)kc).iterations;
+			heights = new int[iterations.size()];
+			for (int i=0; i<heights.length; i++) {
+				heights[i] = iterations.get(i).intValue();
+			}
+			assignment = kc instanceof CommandWLOA;
+		} else if (kc instanceof CommandVL || kc instanceof CommandVLOA) {
+			heights = new int[] { 0 };
+			assignment = kc instanceof CommandVLOA;
+		} else {
+			throw new ParameterException("Incremental computation is supported by wls, wloa, vl and vloa only.");
+		}
+		int maxHeight = 0;
+		for (int h : heights) {
+			maxHeight = Math.max(maxHeight, h);
+		}
+		
+		ArrayList<Kernel<LGraph<String, String>>> kernels = kc.getKernels();
+		for (Kernel<LGraph<String, String>> k : kernels) {
+			System.out.println("Kernel:   "+k.getID());
+		}
+		System.out.println("Dataset:  "+ds.getID());
+		
+		int n = ds.size();
+		long[] fingerprints = ds.getPrefixFingerprints();
+		String[] fileNames = new String[kernels.size()];
+		int[] sizes = new int[kernels.size()];
+		int from = n;
+		for (int i=0; i<fileNames.length; i++) {
+			fileNames[i] = cm.gramDir.getAbsolutePath()+"/"+ds.getID()+"__"+kernels.get(i).getID()+".bgram";
+			File f = new File(fileNames[i]);
+			sizes[i] = f.exists() ? GramUtil.readBinaryDimension(fileNames[i]) : 0;
+			if (sizes[i] > n || f.exists() && GramUtil.readBinaryFingerprint(fileNames[i]) != fingerprints[sizes[i]]) {
+				System.out.println("The gram file "+fileNames[i]+" does not match the data set and is rebuilt.");
+				Files.delete(f.toPath());
+				sizes[i] = 0;
+			}
+			from = Math.min(from, sizes[i]);
+		}
+		
+		long startTime = System.nanoTime();
+		File stateFile = new File(cm.gramDir, ds.getID()+"__WL.state");
+		WeisfeilerLehmanGramState state = null;
+		if (stateFile.exists()) {
+			state = WeisfeilerLehmanGramState.read(stateFile);
+			if (state.size() > n || state.getFingerprint() != fingerprints[state.size()]) {
+				System.out.println("The state "+stateFile+" does not match the data set and is rebuilt.");
+				state = null;
+			}
+		}
+		if (state == null || state.getHeight() < maxHeight) {
+			state = new WeisfeilerLehmanGramState(maxHeight);
+		}
+		int added = n - state.size();
+		
+		// the gram files are extended chunk by chunk, such that an interrupted 
+		// run is resumed from the last chunk; the state is written at the end
+		// and the graphs missing in it are refined again by the next run
+		String[] classes = ds.getClassLabels();
+		boolean singlePrecision = cm.format.equals("binary32");
+		for (int lo=from; lo<n; lo+=INCREMENTAL_CHUNK_SIZE) {
+			int hi = Math.min(n, lo+INCREMENTAL_CHUNK_SIZE);
+			if (state.size() < hi) {
+				state.addAll(ds.subList(state.size(), hi), fingerprints[hi]);
+			}
+			double[][][] columns = state.computeColumns(lo, hi, heights, assignment);
+			for (int i=0; i<fileNames.length; i++) {
+				if (sizes[i] >= hi) continue;
+				int skip = Math.max(0, sizes[i]-lo);
+				GramUtil.appendBinaryFile(Arrays.copyOfRange(columns[i], skip, hi-lo), 
+						Arrays.copyOfRange(classes, lo+skip, hi), fingerprints[hi], fileNames[i], singlePrecision);
+				sizes[i] = hi;
+			}
+		}
+		if (added > 0) {
+			if (state.size() < n) {
+				state.addAll(ds.subList(state.size(), n), fingerprints[n]);
+			}
+			state.write(stateFile);
+		}
+		long runtime = System.nanoTime() - startTime;
+		
+		System.out.println("Refined "+added+" graphs, extended gram files from "+from+" to "+n+" graphs");
+		for (Kernel<LGraph<String, String>> k : kernels) {
+			writeRuntime(ds, k, "inc", runtime);
+		}
+	}
+	
+	/**
+	 * Computes the gram matrix tile by tile and writes the tiles to the file
+	 * as they are completed. A file of a previous run for the same data set
+	 * and settings is resumed.
+	 */
+	private static void computeTiled(SDataset ds, Kernel<LGraph<String, String>> k) throws IOException {
+		String fileName = cm.gramDir.getAbsolutePath()+"/"+ds.getID()+"__"+k.getID()+".tgram";
+		try (TiledGramFile file = TiledGramFile.open(fileName, ds.getClassLabels(), ds.getFingerprint(), cm.blockSize, cm.format.equals("tiled32"))) {
+			if (file.isComplete()) {
+				System.out.println("Gram file "+fileName+" is complete");
+				return;
+			}
+			boolean explicit = false;
+			long startTime = System.nanoTime();
+			if (cm.explicit) {
+				((ExplicitMappingKernel<LGraph<String, String>, ?>)k).computeExplicit(ds, file);
+				explicit = true;
+			} else if (cm.implicit || !(k instanceof ExplicitMappingKernel)) {
+				k.compute(ds, file);
+			} else {
+				try {
+					((ExplicitMappingKernel<LGraph<String, String>, ?>)k).computeExplicit(ds, file);
+					explicit = true;
+				} catch (UnsupportedMappingException e) {
+					System.out.println("Non-explicit computation due to kernel choice!");
+					k.compute(ds, file);
+				}
+			}
+			writeRuntime(ds, k, explicit ? "exp" : "imp", System.nanoTime() - startTime);
+		}
+	}
+	
+	/**
+	 * Appends the running time to the log file.
+	 */
+	private static void writeRuntime(SDataset ds, Kernel<?> k, String mode, long runtime) throws IOException {
+		FileWriter fw = new FileWriter(cm.logFile, true);
+		BufferedWriter bw = new BufferedWriter(fw);
+		bw.append(ds.getID()+"\t"+k.getID()+"\t"+mode+"\t"+(double)runtime/1000d/1000+"\n");
+		bw.close();
+	}
+	
+	/**
+	 * Appends the running time to the log file and writes the gram file.
+	 */
+	private static void writeResult(SDataset ds, Kernel<?> k, boolean explicit, long runtime, double[][] gram) throws IOException {
+		writeRuntime(ds, k, explicit ? "exp" : "imp", runtime);
+
+		// write gram file 
+		String fileName = cm.gramDir.getAbsolutePath()+"/"+ds.getID()+"__"+k.getID();
+		switch (cm.format) {
+			case "libsvm"   : GramUtil.writeLibSVMFile(gram, ds.getClassLabels(), fileName+".gram"); break;
+			case "binary"   : GramUtil.writeBinaryFile(gram, ds.getClassLabels(), ds.getFingerprint(), fileName+".bgram", false); break;
+			case "binary32" : GramUtil.writeBinaryFile(gram, ds.getClassLabels(), ds.getFingerprint(), fileName+".bgram", true); break;
+		}
+	}
 		
 }
@@ -0,0 +1,620 @@
+package cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.converters.FileConverter;
+
+import algorithm.graph.isomorphism.labelrefinement.WeisfeilerLehmanColorDictionary.Unseen;
+import benchmark.dataset.SDataset;
+import comparison.kernel.Kernel;
+import comparison.kernel.basic.DiracKernel;
+import comparison.kernel.graph.OptimalAssignmentGraphKernel;
+import comparison.kernel.graph.VertexKernel;
+import comparison.kernel.graph.WeisfeilerLehmanGramState;
+import comparison.kernel.graph.WeisfeilerLehmanSubtreeKernel;
+import datastructure.CompressedFeatureVector;
+import datastructure.InvertedIndex;
+import datastructure.InvertedIndex.SearchResult;
+import graph.AdjListGraph;
+import graph.Graph.Edge;
+import graph.Graph.Vertex;
+import graph.LGraph;
+import graph.properties.EdgeArray;
+import graph.properties.VertexArray;
+import util.concurrent.ParallelTools;
+
+/**
+ * Long-running service computing the kernel values of query graphs and a
+ * fixed training set. The color histograms of the training graphs are
+ * computed once and kept in memory, see {@link WeisfeilerLehmanGramState}.
+ *
+ * Requests are read from standard input, one JSON object per line, and
+ * are processed concurrently. The responses are written to standard output
+ * in the order of completion, one JSON object per line, and carry the id of
+ * the request. A query graph is given either in JSON form
+ * <pre>
+ * {"id":1, "labels":["C","O","C"], "edges":[[0,1],[1,2]], "edge_labels":["1","2"]}
+ * </pre>
+ * with vertex indices starting at 0, or in TU form
+ * <pre>
+ * {"id":1, "node_labels":[1,2,1], "A":["1, 2","2, 1","2, 3","3, 2"], "edge_labels":[1,1,2,2]}
+ * </pre>
+ * with the lines of the files DS_node_labels.txt, DS_A.txt and
+ * DS_edge_labels.txt of the graph, where vertex indices start at 1. Labels
+ * are optional. The response <code>{"id":1, "row":[...], "micros":...}</code>
+ * contains the kernel values in the order of the training set and the
+ * latency including the time waiting for a thread. If enabled, the
+ * response <code>{"id":1, "indices":[...], "values":[...], "micros":...}</code>
+ * contains the k training graphs with the largest kernel values found by
+ * an {@link InvertedIndex} instead. The request
+ * <code>{"cmd":"stats"}</code> returns the latency statistics.
+ */
+public class KServe {
+
+	/**
+	 * Maximum number of requests waiting for a thread; if exceeded, the
+	 * reading thread processes the request itself.
+	 */
+	static int QUEUE_CAPACITY = 1024;
+
+	/**
+	 * Number of most recent requests used for the latency percentiles.
+	 */
+	static int LATENCY_WINDOW = 10000;
+
+	static class CommandMain extends KCommon.CommandMain {
+
+		@Parameter(names = { "-D", "--datadir" }, description = "Directory containing the data files", converter = FileConverter.class)
+		File dataDir = new File("data");
+
+		@Parameter(names = {"-d", "--dataset"}, description = "Training data set, graphs missing in the state are added")
+		String dataset;
+
+		@Parameter(names = { "--state" }, description = "File storing the kernel state of the training set, "
+				+ "created if missing or outdated", converter = FileConverter.class)
+		File stateFile;
+
+		@Parameter(names = { "-u", "--unseen" }, description = "Treatment of vertex labels and neighborhoods of query "
+				+ "graphs not contained in the training set: fresh (distinct new colors) or drop (ignored)")
+		String unseen = "fresh";
+
+		@Parameter(names = { "-t", "--threads" }, description = "Number of threads processing requests (default: number of processors)")
+		Integer threads;
+
+		@Parameter(names = { "--no-cache" }, description = "Do not read or write the binary cache of the data set")
+		boolean noCache = false;
+
+		@Parameter(names = { "-k", "--top" }, description = "Return the indices and kernel values of the k most similar "
+				+ "training graphs found by an inverted index instead of the kernel row")
+		Integer top;
+	}
+
+	static abstract class ServeConfig {
+		abstract int getHeight();
+		abstract boolean isAssignment();
+		abstract Kernel<LGraph<String, String>> getKernel();
+	}
+
+	static abstract class CommandWL extends ServeConfig {
+		@Parameter(names = { "-h", "--height" }, description = "height, i.e., the number of refinement steps")
+		int height = 3;
+
+		@Override
+		int getHeight() {
+			return height;
+		}
+	}
+
+	@Parameters(commandDescription = "Serve the Weisfeiler-Lehman subtree kernel.")
+	static class CommandWLS extends CommandWL {
+		boolean isAssignment() { return false; }
+		Kernel<LGraph<String, String>> getKernel() { return new WeisfeilerLehmanSubtreeKernel<>(height); }
+	}
+
+	@Parameters(commandDescription = "Serve the Weisfeiler-Lehman optimal assignment kernel.")
+	static class CommandWLOA extends CommandWL {
+		boolean isAssignment() { return true; }
+		Kernel<LGraph<String, String>> getKernel() { return new OptimalAssignmentGraphKernel.WeisfeilerLehmanSubtree<>(height); }
+	}
+
+	@Parameters(commandDescription = "Serve the vertex label kernel.")
+	static class CommandVL extends ServeConfig {
+		int getHeight() { return 0; }
+		boolean isAssignment() { return false; }
+		Kernel<LGraph<String, String>> getKernel() { return new VertexKernel<>(new DiracKernel()); }
+	}
+
+	@Parameters(commandDescription = "Serve the vertex label optimal assignment kernel.")
+	static class CommandVLOA extends ServeConfig {
+		int getHeight() { return 0; }
+		boolean isAssignment() { return true; }
+		Kernel<LGraph<String, String>> getKernel() { return new OptimalAssignmentGraphKernel.Vertex<String, String>(false); }
+	}
+
+	static CommandMain cm = new CommandMain();
+	static CommandWLS wls = new CommandWLS();
+	static CommandWLOA wloa = new CommandWLOA();
+	static CommandVL vl = new CommandVL();
+	static CommandVLOA vloa = new CommandVLOA();
+
+	public static void main(String[] argsString) throws IOException, InterruptedException {
+
+		JCommander jc = new JCommander(cm);
+		jc.addCommand("wls", wls);
+		jc.addCommand("wloa", wloa);
+		jc.addCommand("vl", vl);
+		jc.addCommand("vloa", vloa);
+		jc.setProgramName("kserve");
+
+		jc.parse(argsString);
+
+		if (cm.help || jc.getParsedCommand() == null) {
+			jc.usage();
+			System.exit(0);
+		}
+
+		if (cm.dataset == null && (cm.stateFile == null || !cm.stateFile.exists())) {
+			throw new ParameterException("Specify a data set or an existing state file.");
+		}
+
+		Unseen unseen;
+		switch (cm.unseen) {
+			case "fresh" : unseen = Unseen.FRESH; break;
+			case "drop"  : unseen = Unseen.DROP;  break;
+			default      : throw new ParameterException("Unknown treatment of unseen labels '"+cm.unseen+"'.");
+		}
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (cm.threads != null) {
+			if (cm.threads < 1) {
+				throw new ParameterException("The number of threads must be positive.");
+			}
+			ParallelTools.setThreadCount(cm.threads);
+			threads = cm.threads;
+		}
+
+		ServeConfig sc = null;
+		switch (jc.getParsedCommand()) {
+			case "wls"  : sc = wls;  break;
+			case "wloa" : sc = wloa; break;
+			case "vl"   : sc = vl;   break;
+			case "vloa" : sc = vloa; break;
+		}
+		if (sc.getHeight() < 0) {
+			throw new ParameterException("The height must not be negative.");
+		}
+
+		long startTime = System.nanoTime();
+		WeisfeilerLehmanGramState state = loadState(sc.getHeight());
+		System.err.println("Kernel:   "+sc.getKernel().getID());
+		System.err.println("Graphs:   "+state.size()+" loaded in "+(System.nanoTime()-startTime)/1000/1000+" ms");
+
+		if (cm.top != null && cm.top < 1) {
+			throw new ParameterException("The number of most similar graphs must be positive.");
+		}
+		KServe server = new KServe(state, sc.getHeight(), sc.isAssignment(), unseen, threads);
+		if (cm.top != null) {
+			server.enableSearch(cm.top);
+		}
+		server.serve(
+				new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+				new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Reads the state from the state file and adds the graphs of the data
+	 * set not contained in it. The state is rebuilt if its height is too
+	 * small or its graphs are not the first graphs of the data set and 
+	 * written if it has changed.
+	 */
+	private static WeisfeilerLehmanGramState loadState(int height) throws IOException {
+		WeisfeilerLehmanGramState state = null;
+		if (cm.stateFile != null && cm.stateFile.exists()) {
+			state = WeisfeilerLehmanGramState.read(cm.stateFile);
+			if (state.getHeight() < height) {
+				if (cm.dataset == null) {
+					throw new ParameterException("The state "+cm.stateFile+" has height "+state.getHeight()+" only.");
+				}
+				state = null;
+			}
+		}
+		SDataset ds = null;
+		long[] fingerprints = null;
+		if (cm.dataset != null) {
+			ds = KCommon.loadSDataset(cm.dataset, cm.dataDir, !cm.noCache);
+			fingerprints = ds.getPrefixFingerprints();
+			if (state != null && (state.size() > ds.size() || state.getFingerprint() != fingerprints[state.size()])) {
+				System.err.println("The state "+cm.stateFile+" does not match the data set and is rebuilt.");
+				state = null;
+			}
+		}
+		boolean changed = state == null;
+		if (state == null) {
+			state = new WeisfeilerLehmanGramState(height);
+		}
+		if (ds != null) {
+			changed |= state.size() < ds.size();
+			state.addAll(ds.subList(state.size(), ds.size()), fingerprints[ds.size()]);
+		}
+		if (changed && cm.stateFile != null) {
+			state.write(cm.stateFile);
+		}
+		return state;
+	}
+
+	private final WeisfeilerLehmanGramState state;
+	private final int[] heights;
+	private final boolean assignment;
+	private final Unseen unseen;
+	private final int threads;
+	private final LatencyStats stats = new LatencyStats(LATENCY_WINDOW);
+	private BufferedWriter out;
+	private InvertedIndex index;
+	private int top;
+
+	/**
+	 * @param state the training set
+	 * @param height the height of the kernel, at most the height of the state
+	 * @param assignment true for the optimal assignment kernel, false for
+	 * the subtree kernel
+	 * @param unseen the treatment of unseen labels and signatures, must not
+	 * modify the state
+	 * @param threads the number of threads processing requests
+	 */
+	KServe(WeisfeilerLehmanGramState state, int height, boolean assignment, Unseen unseen, int threads) {
+		if (unseen == Unseen.ADD) {
+			throw new IllegalArgumentException("Queries must not modify the state.");
+		}
+		this.state = state;
+		this.heights = new int[] { height };
+		this.assignment = assignment;
+		this.unseen = unseen;
+		this.threads = threads;
+	}
+
+	/**
+	 * Answers requests by the k most similar training graphs found by an
+	 * inverted index instead of the kernel row. A request may specify a
+	 * different number by the key "k".
+	 * @param k the default number of graphs
+	 */
+	void enableSearch(int k) {
+		this.index = state.createIndex(heights[0]);
+		this.top = k;
+	}
+
+	/**
+	 * Processes the requests until the end of the input and waits for
+	 * pending requests. The latency statistics are finally written to
+	 * standard error.
+	 */
+	void serve(BufferedReader in, BufferedWriter out) throws IOException, InterruptedException {
+		this.out = out;
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(QUEUE_CAPACITY), new ThreadPoolExecutor.CallerRunsPolicy());
+		System.err.println("Ready");
+		try {
+			String line;
+			long lineNumber = 0;
+			while ((line = in.readLine()) != null) {
+				long received = System.nanoTime();
+				lineNumber++;
+				if (line.trim().isEmpty()) continue;
+				try {
+					dispatch(line, lineNumber, received, pool);
+				} catch (RuntimeException | StackOverflowError e) {
+					// a single line must not stop the service
+					respondError(lineNumber, "Internal error: "+e, received);
+				}
+			}
+		} finally {
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+		StringBuilder sb = new StringBuilder();
+		Json.write(sb, stats.get());
+		System.err.println("Latency:  "+sb);
+	}
+
+	/**
+	 * Parses a line and answers it directly or submits it to the pool.
+	 */
+	private void dispatch(String line, long defaultId, long received, ThreadPoolExecutor pool) {
+		Map<String, Object> request;
+		try {
+			request = asObject(Json.parse(line));
+		} catch (IllegalArgumentException e) {
+			respondError(defaultId, e.getMessage(), received);
+			return;
+		}
+		Object id = request.containsKey("id") ? request.get("id") : defaultId;
+		if ("stats".equals(request.get("cmd"))) {
+			LinkedHashMap<String, Object> r = new LinkedHashMap<>();
+			r.put("id", id);
+			r.put("stats", stats.get());
+			respond(r);
+		} else if (request.containsKey("cmd")) {
+			respondError(id, "Unknown command.", received);
+		} else {
+			pool.execute(() -> process(id, request, received));
+		}
+	}
+
+	/**
+	 * Answers a request by exactly one response, which is an error if the
+	 * request is invalid or its processing fails.
+	 */
+	private void process(Object id, Map<String, Object> request, long received) {
+		String response;
+		try {
+			response = answer(id, request, received);
+		} catch (IllegalArgumentException e) {
+			response = error(id, "Invalid request: "+e.getMessage(), received);
+		} catch (RuntimeException | StackOverflowError e) {
+			response = error(id, "Internal error: "+e, received);
+		}
+		respond(response);
+	}
+
+	private String answer(Object id, Map<String, Object> request, long received) throws IllegalArgumentException {
+		LGraph<String, String> lg = parseGraph(request);
+		int k = top;
+		if (index != null && request.containsKey("k")) {
+			k = getInt(request.get("k"), "'k'");
+		}
+		CompressedFeatureVector[] fv = state.getDictionary().getFeatureVectorsByIteration(lg, heights[0], unseen);
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"id\":");
+		Json.write(sb, id);
+		if (index != null) {
+			SearchResult r = index.search(WeisfeilerLehmanGramState.mergeIterations(fv, heights[0]), k, assignment);
+			sb.append(",\"indices\":[");
+			for (int i=0; i<r.indices.length; i++) {
+				if (i != 0) sb.append(',');
+				sb.append(r.indices[i]);
+			}
+			appendValues(sb.append("],\"values\":["), r.scores);
+		} else {
+			appendValues(sb.append(",\"row\":["), state.computeRow(fv, heights, assignment)[0]);
+		}
+		long latency = (System.nanoTime() - received) / 1000;
+		sb.append(",\"micros\":").append(latency).append('}');
+		stats.add(latency, false);
+		return sb.toString();
+	}
+
+	/**
+	 * Appends the values and closes the array.
+	 */
+	private static StringBuilder appendValues(StringBuilder sb, double[] values) {
+		for (int i=0; i<values.length; i++) {
+			if (i != 0) sb.append(',');
+			Json.write(sb, values[i]);
+		}
+		return sb.append(']');
+	}
+
+	private void respondError(Object id, String message, long received) {
+		respond(error(id, message, received));
+	}
+
+	private String error(Object id, String message, long received) {
+		stats.add((System.nanoTime() - received) / 1000, true);
+		LinkedHashMap<String, Object> r = new LinkedHashMap<>();
+		r.put("id", id);
+		r.put("error", message);
+		StringBuilder sb = new StringBuilder();
+		Json.write(sb, r);
+		return sb.toString();
+	}
+
+	private void respond(Map<String, Object> response) {
+		StringBuilder sb = new StringBuilder();
+		Json.write(sb, response);
+		respond(sb.toString());
+	}
+
+	private synchronized void respond(String line) {
+		try {
+			out.write(line);
+			out.newLine();
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> asObject(Object o) {
+		if (!(o instanceof Map)) throw new IllegalArgumentException("Request is not a JSON object.");
+		return (Map<String, Object>)o;
+	}
+
+	/**
+	 * @return the array stored under the key or null if the key is absent
+	 * or null
+	 * @throws IllegalArgumentException if the value is not an array
+	 */
+	private static List<?> getList(Map<String, Object> request, String key) throws IllegalArgumentException {
+		Object o = request.get(key);
+		if (o != null && !(o instanceof List)) {
+			throw new IllegalArgumentException("'"+key+"' must be an array.");
+		}
+		return (List<?>)o;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the value is not an integer in the
+	 * range of int
+	 */
+	private static int getInt(Object o, String name) throws IllegalArgumentException {
+		if (!(o instanceof Long) || (Long)o != ((Long)o).intValue()) {
+			throw new IllegalArgumentException(name+" must be an integer.");
+		}
+		return ((Long)o).intValue();
+	}
+
+	/**
+	 * Creates the graph of a request in JSON or TU form. Labels are
+	 * converted to strings as by {@link benchmark.dataset.AttrDataset#getSDataset()}.
+	 * @throws IllegalArgumentException if the graph is invalid
+	 */
+	static LGraph<String, String> parseGraph(Map<String, Object> request) throws IllegalArgumentException {
+		boolean tu = request.containsKey("A");
+		List<?> labels = getList(request, tu ? "node_labels" : "labels");
+		List<?> edges = getList(request, tu ? "A" : "edges");
+		List<?> edgeLabels = getList(request, "edge_labels");
+		int offset = tu ? 1 : 0;
+		int n;
+		if (labels != null) {
+			n = labels.size();
+		} else if (request.get("n") != null) {
+			n = getInt(request.get("n"), "'n'");
+			if (n < 0) throw new IllegalArgumentException("'n' must not be negative.");
+		} else {
+			throw new IllegalArgumentException("Missing vertex labels or vertex count 'n'.");
+		}
+		if (edgeLabels != null && (edges == null || edgeLabels.size() != edges.size())) {
+			throw new IllegalArgumentException("The number of edge labels does not match the number of edges.");
+		}
+
+		AdjListGraph g = new AdjListGraph();
+		VertexArray<String> va = new VertexArray<>(g, true);
+		EdgeArray<String> ea = new EdgeArray<>(g, true);
+		for (int i=0; i<n; i++) {
+			Vertex v = g.createVertex();
+			va.set(v, labels != null ? toLabel(labels.get(i), tu) : "");
+		}
+		if (edges != null) {
+			int[] uv = new int[2];
+			for (int i=0; i<edges.size(); i++) {
+				parseEdge(edges.get(i), uv);
+				if (uv[0] < offset || uv[0] >= n+offset || uv[1] < offset || uv[1] >= n+offset) {
+					throw new IllegalArgumentException("Edge "+i+" has an invalid vertex index.");
+				}
+				Vertex u = g.getVertex(uv[0]-offset);
+				Vertex v = g.getVertex(uv[1]-offset);
+				// as in the data sets the label of the first occurrence is used
+				if (!g.hasEdge(u, v)) {
+					Edge e = g.createEdge(u, v);
+					ea.set(e, edgeLabels != null ? toLabel(edgeLabels.get(i), tu) : "");
+				}
+			}
+		}
+		return new LGraph<>(g, va, ea);
+	}
+
+	private static void parseEdge(Object o, int[] uv) {
+		if (o instanceof String) {
+			String[] t = ((String)o).split(",");
+			if (t.length != 2) throw new IllegalArgumentException("Invalid edge '"+o+"'.");
+			try {
+				uv[0] = Integer.parseInt(t[0].trim());
+				uv[1] = Integer.parseInt(t[1].trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid edge '"+o+"'.");
+			}
+		} else if (o instanceof List && ((List<?>)o).size() == 2) {
+			List<?> l = (List<?>)o;
+			uv[0] = getInt(l.get(0), "A vertex index");
+			uv[1] = getInt(l.get(1), "A vertex index");
+		} else {
+			throw new IllegalArgumentException("Invalid edge "+o+".");
+		}
+	}
+
+	/**
+	 * Converts a label to a string. The nominal attributes of a list or a
+	 * comma separated line in TU form are joined by ';'.
+	 */
+	private static String toLabel(Object o, boolean tu) {
+		if (o == null) return "";
+		if (o instanceof List) {
+			StringBuilder sb = new StringBuilder();
+			for (Object a : (List<?>)o) {
+				if (sb.length() != 0) sb.append(';');
+				sb.append(toLabel(a, false));
+			}
+			return sb.toString();
+		}
+		if (o instanceof Double) {
+			StringBuilder sb = new StringBuilder();
+			Json.write(sb, ((Double)o).doubleValue());
+			return sb.toString();
+		}
+		String s = o.toString();
+		if (tu && o instanceof String) {
+			String[] t = s.split(",");
+			StringBuilder sb = new StringBuilder();
+			for (int i=0; i<t.length; i++) {
+				if (i != 0) sb.append(';');
+				sb.append(t[i].trim());
+			}
+			return sb.toString();
+		}
+		return s;
+	}
+
+	/**
+	 * Collects the latencies of requests. Mean and maximum are computed over
+	 * all requests, the percentiles over a window of the most recent ones.
+	 */
+	static class LatencyStats {
+
+		private final long[] window;
+		private long count;
+		private long errors;
+		private long total;
+		private long max;
+
+		LatencyStats(int windowSize) {
+			window = new long[windowSize];
+		}
+
+		synchronized void add(long micros, boolean error) {
+			window[(int)(count % window.length)] = micros;
+			count++;
+			if (error) errors++;
+			total += micros;
+			max = Math.max(max, micros);
+		}
+
+		synchronized Map<String, Object> get() {
+			long[] w = Arrays.copyOf(window, (int)Math.min(count, window.length));
+			Arrays.sort(w);
+			LinkedHashMap<String, Object> r = new LinkedHashMap<>();
+			r.put("requests", count);
+			r.put("errors", errors);
+			r.put("mean_micros", count == 0 ? 0 : total / count);
+			r.put("p50_micros", percentile(w, 0.5));
+			r.put("p95_micros", percentile(w, 0.95));
+			r.put("p99_micros", percentile(w, 0.99));
+			r.put("max_micros", max);
+			return r;
+		}
+
+		private static long percentile(long[] sorted, double p) {
+			if (sorted.length == 0) return 0;
+			return sorted[(int)Math.min(sorted.length-1, Math.ceil(p*sorted.length)-1)];
+		}
+	}
+
+}
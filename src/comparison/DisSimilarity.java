@@ -1,6 +1,9 @@
 package comparison;
 
+import java.io.IOException;
 import java.util.List;
+
+import util.kernel.TiledGramFile;
 /**
  * Interface for the comparison of objects, either similarity or
  * dissimilarity measures.
@@ -26,23 +29,31 @@ public interface DisSimilarity<T> {
 	 * Note: This method should be overwritten if a preprocessing on the 
 	 * elements in the set allows more efficient pair-wise computation.
 	 * 
+	 * The pairs are computed in parallel, see {@link GramComputation}; 
+	 * implementing classes must allow concurrent calls of 
+	 * {@link #compute(Object, Object)}.
+	 * 
 	 * @param set all objects
 	 * @return symmetric matrix of (dis)similarities
 	 */
 	default double[][] compute(List<? extends T> set) {
-		int n = set.size();
-		double[][] r = new double[n][n];
-		
-		for (int i=0; i<n; i++) {
-			System.out.print('.');
-			T e1 = set.get(i);
-			for (int j=i; j<n; j++) {
-				T e2 = set.get(j);
-				r[i][j] = r[j][i] = this.compute(e1, e2);
-			}
-		}
-		System.out.println();
-		return r;
+		return GramComputation.computeSymmetric(set.size(), 
+				(i, j) -> this.compute(set.get(i), set.get(j)));
 	}
 		
+	/**
+	 * Computes the (dis)similarity for all pairs from the set of objects and
+	 * stores the matrix in the file tile by tile, such that it may exceed 
+	 * the available memory. Tiles already complete in the file are not 
+	 * computed again, see 
+	 * {@link GramComputation#computeSymmetric(int, GramComputation.PairFunction, TiledGramFile)}.
+	 * 
+	 * @param set all objects
+	 * @param file the file, its dimension must be the size of the set
+	 * @throws IOException
+	 */
+	default void compute(List<? extends T> set, TiledGramFile file) throws IOException {
+		GramComputation.computeSymmetric(set.size(), (i, j) -> this.compute(set.get(i), set.get(j)), file);
+	}
+	
 }
@@ -0,0 +1,249 @@
+package comparison;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.RecursiveAction;
+
+import util.concurrent.ParallelTools;
+import util.kernel.TiledGramFile;
+
+/**
+ * Computes symmetric matrices of pairwise (dis)similarities. The upper
+ * triangle of the matrix is split into square tiles, which are processed
+ * by the work-stealing pool provided by {@link ParallelTools}. Each entry
+ * is computed exactly once by the same function as in the sequential
+ * case, hence the result does not depend on the number of threads.
+ *
+ * @see ParallelTools#setThreadCount(int)
+ */
+public class GramComputation {
+
+	/**
+	 * The number of rows and columns of a tile.
+	 */
+	public static final int BLOCK_SIZE = 32;
+
+	/**
+	 * Computes the value for a pair of indices.
+	 */
+	public interface PairFunction {
+		public double compute(int i, int j);
+	}
+
+	/**
+	 * Computes a vector of values for a pair of indices.
+	 */
+	public interface CompositePairFunction {
+		public double[] compute(int i, int j);
+	}
+
+	/**
+	 * Receives the matrix of a component, e.g., the gram matrix of a single
+	 * height. The matrix may be modified after the call returns.
+	 */
+	public interface GramConsumer {
+		public void accept(int component, double[][] gram);
+	}
+
+	/**
+	 * Is called for all pairs (i, j) with i <= j.
+	 */
+	public interface PairVisitor {
+		public void visit(int i, int j);
+	}
+
+	/**
+	 * Computes the symmetric matrix r with r[i][j] = r[j][i] = f(i, j) for
+	 * all i <= j.
+	 * @param n number of objects
+	 * @param f the function computing a single entry
+	 * @return symmetric n x n matrix
+	 */
+	public static double[][] computeSymmetric(int n, PairFunction f) {
+		double[][] r = new double[n][n];
+		visitUpperTriangle(n, (i, j) -> r[i][j] = r[j][i] = f.compute(i, j));
+		return r;
+	}
+
+	/**
+	 * Computes the symmetric matrix r with r[i][j] = r[j][i] = f(i, j) for
+	 * all i <= j, where each element is a vector.
+	 * @param n number of objects
+	 * @param f the function computing a single entry
+	 * @return symmetric n x n matrix of vectors
+	 */
+	public static double[][][] computeSymmetricComposition(int n, CompositePairFunction f) {
+		double[][][] r = new double[n][n][];
+		visitUpperTriangle(n, (i, j) -> r[i][j] = r[j][i] = f.compute(i, j));
+		return r;
+	}
+
+	/**
+	 * Computes the symmetric matrices of the prefix sums of a vector valued
+	 * function, i.e., r[c][i][j] = r[c][j][i] is the sum of the components
+	 * 0, ..., components[c] of f(i, j) for all i <= j. Only the matrices for
+	 * the given components are created.
+	 * @param n number of objects
+	 * @param f the function computing the vector of a single entry
+	 * @param components the indices of the last summed component in
+	 * ascending order
+	 * @return n x n matrices indexed like components
+	 */
+	public static double[][][] computeSymmetricPrefixSums(int n, CompositePairFunction f, int[] components) {
+		double[][][] r = new double[components.length][n][n];
+		visitUpperTriangle(n, (i, j) -> {
+			double[] v = f.compute(i, j);
+			double sum = 0;
+			int l = 0;
+			for (int c=0; c<components.length; c++) {
+				for (; l<=components[c]; l++) {
+					sum += v[l];
+				}
+				r[c][i][j] = r[c][j][i] = sum;
+			}
+		});
+		return r;
+	}
+
+	/**
+	 * Calls the visitor for all pairs (i, j) with 0 <= i <= j < n. The pairs
+	 * are visited in parallel if more than one thread is configured; the
+	 * visitor must support concurrent calls for distinct pairs in this case.
+	 * @param n number of objects
+	 * @param v the visitor
+	 */
+	public static void visitUpperTriangle(int n, PairVisitor v) {
+		if (!ParallelTools.isParallel()) {
+			for (int i=0; i<n; i++) {
+				System.out.print('.');
+				for (int j=i; j<n; j++) {
+					v.visit(i, j);
+				}
+			}
+			System.out.println();
+		} else {
+			int blocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			int tiles = blocks * (blocks + 1) / 2;
+			int[] tileRow = new int[tiles];
+			int[] tileColumn = new int[tiles];
+			int t = 0;
+			for (int bi=0; bi<blocks; bi++) {
+				for (int bj=bi; bj<blocks; bj++) {
+					tileRow[t] = bi;
+					tileColumn[t] = bj;
+					t++;
+				}
+			}
+			ParallelTools.invoke(new TileTask(0, tiles, tile -> {
+				int rowStart = tileRow[tile] * BLOCK_SIZE;
+				int rowEnd = Math.min(n, rowStart + BLOCK_SIZE);
+				int columnStart = tileColumn[tile] * BLOCK_SIZE;
+				int columnEnd = Math.min(n, columnStart + BLOCK_SIZE);
+				for (int i=rowStart; i<rowEnd; i++) {
+					for (int j=Math.max(i, columnStart); j<columnEnd; j++) {
+						v.visit(i, j);
+					}
+				}
+				if (tileRow[tile] == tileColumn[tile]) System.out.print('.');
+			}));
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Computes the symmetric matrix r with r[i][j] = r[j][i] = f(i, j) for
+	 * all i <= j and stores it in the file, which may exceed the available
+	 * memory. Each tile of the file is computed and written as soon as it
+	 * is complete, tiles already complete in the file are skipped. Hence, a
+	 * computation interrupted by a crash is resumed by calling this method
+	 * for the reopened file. The tiles are computed in parallel if more
+	 * than one thread is configured.
+	 * @param n the size of the matrix
+	 * @param f the function computing a single entry
+	 * @param file the file, its dimension must be n
+	 * @throws IOException
+	 */
+	public static void computeSymmetric(int n, PairFunction f, TiledGramFile file) throws IOException {
+		file.checkDimension(n);
+		int blockSize = file.getBlockSize();
+		int blocks = file.getBlockCount();
+		int[] tileRow = new int[blocks * (blocks + 1) / 2];
+		int[] tileColumn = new int[tileRow.length];
+		int tiles = 0;
+		for (int bi=0; bi<blocks; bi++) {
+			for (int bj=bi; bj<blocks; bj++) {
+				if (file.isComplete(bi, bj)) continue;
+				tileRow[tiles] = bi;
+				tileColumn[tiles] = bj;
+				tiles++;
+			}
+		}
+		TileAction a = tile -> {
+			int bi = tileRow[tile], bj = tileColumn[tile];
+			int rowStart = bi * blockSize;
+			int rows = Math.min(blockSize, n - rowStart);
+			int columnStart = bj * blockSize;
+			int columns = Math.min(blockSize, n - columnStart);
+			double[] values = new double[rows * columns];
+			for (int r=0; r<rows; r++) {
+				for (int c=0; c<columns; c++) {
+					// tiles on the diagonal are symmetric
+					values[r*columns + c] = bi == bj && c < r ? values[c*columns + r] : f.compute(rowStart + r, columnStart + c);
+				}
+			}
+			try {
+				file.writeTile(bi, bj, values);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			if (bi == bj) System.out.print('.');
+		};
+		try {
+			if (!ParallelTools.isParallel()) {
+				for (int t=0; t<tiles; t++) {
+					a.process(t);
+				}
+			} else {
+				ParallelTools.invoke(new TileTask(0, tiles, a));
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		System.out.println();
+	}
+
+	/**
+	 * Processes a tile given by its index.
+	 */
+	private interface TileAction {
+		public void process(int tile);
+	}
+
+	/**
+	 * Processes a range of tiles by recursive splitting.
+	 */
+	private static class TileTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		final int lo, hi;
+		final TileAction a;
+
+		public TileTask(int lo, int hi, TileAction a) {
+			this.lo = lo;
+			this.hi = hi;
+			this.a = a;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new TileTask(lo, mid, a), new TileTask(mid, hi, a));
+			} else if (hi > lo) {
+				a.process(lo);
+			}
+		}
+	}
+
+}
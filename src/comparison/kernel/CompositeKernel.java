@@ -2,6 +2,8 @@ package comparison.kernel;
 
 import java.util.List;
 
+import comparison.GramComputation;
+
 /**
  * Returns the result of several kernel functions, computed by a single 
  * call of the method {@link #computeComposition(Object, Object)}. Each 
@@ -48,20 +50,8 @@ public interface CompositeKernel<T> extends Kernel<T> {
 	 * @return a gram matrix, where each element is a vector of kernel values
 	 */
 	default double[][][] computeComposition(List<? extends T> set) {
-		int n = set.size();
-		double[][][] gram = new double[n][n][getComponentCount()];
-		
-		for (int i=0; i<n; i++) {
-			System.out.print('.');
-			T e1 = set.get(i);
-			for (int j=i; j<n; j++) {
-				T e2 = set.get(j);
-				gram[i][j] = gram[j][i] = computeComposition(e1, e2);
-			}
-		}
-		
-		System.out.println();
-		return gram;
+		return GramComputation.computeSymmetricComposition(set.size(), 
+				(i, j) -> computeComposition(set.get(i), set.get(j)));
 	}
 	
 	/**
@@ -1,10 +1,18 @@
 package comparison.kernel;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
+import comparison.GramComputation;
 import comparison.kernel.basic.DotProductKernel;
+import concepts.TransformationTools;
+import datastructure.CompressedFeatureVector;
+import datastructure.FeatureDictionary;
 import datastructure.FeatureVector;
+import util.concurrent.ParallelTools;
+import util.kernel.TiledGramFile;
 
 /**
  * Interface for kernels allowing explicit mapping into feature space.
@@ -16,6 +24,18 @@ import datastructure.FeatureVector;
  */
 public interface ExplicitMappingKernel<T,O> extends Kernel<T> {
 	
+	/**
+	 * Thrown if explicit mapping is not allowed with the current state of
+	 * the kernel, e.g., due to the choice of a base kernel.
+	 */
+	public static class UnsupportedMappingException extends IllegalStateException {
+		private static final long serialVersionUID = 1L;
+
+		public UnsupportedMappingException(String message) {
+			super(message);
+		}
+	}
+	
 	/**
 	 * Computes the explicit mapping associated with a kernel for an object.
 	 * @param t object
@@ -26,11 +46,16 @@ public interface ExplicitMappingKernel<T,O> extends Kernel<T> {
 	
 	/**
 	 * Computes the explicit mapping associated with a kernel for a set of objects.
+	 * The feature vectors are computed in parallel if more than one thread is 
+	 * configured, see {@link ParallelTools}.
 	 * @param list list of objects
 	 * @return a feature vector for each object
 	 * @throws IllegalStateException if explicit mapping is not allowed with current state of the kernel 
 	 */
 	default ArrayList<FeatureVector<O>> getFeatureVectors(List<? extends T> list) throws IllegalStateException {
+		if (ParallelTools.isParallel()) {
+			return getFeatureVectors(list, ParallelTools.getPool());
+		}
 		ArrayList<FeatureVector<O>> r = new ArrayList<FeatureVector<O>>(list.size());
 		for (T t : list) {
 			r.add(getFeatureVector(t));
@@ -38,6 +63,22 @@ public interface ExplicitMappingKernel<T,O> extends Kernel<T> {
 		return r;		
 	}
 	
+	/**
+	 * Computes the explicit mapping associated with a kernel for a set of objects,
+	 * where the feature vectors are computed by the given executor. 
+	 * 
+	 * Note: Implementing classes must allow concurrent calls of 
+	 * {@link #getFeatureVector(Object)}.
+	 * 
+	 * @param list list of objects
+	 * @param executor the executor computing the feature vectors
+	 * @return a feature vector for each object in the order of the list
+	 * @throws IllegalStateException if explicit mapping is not allowed with current state of the kernel 
+	 */
+	default ArrayList<FeatureVector<O>> getFeatureVectors(List<? extends T> list, ExecutorService executor) throws IllegalStateException {
+		return TransformationTools.transformAll(this::getFeatureVector, list, executor);
+	}
+	
 	/**
 	 * Computes kernel by explicit mapping, i.e., the feature vector of both
 	 * is computed and then the dot product is returned.
@@ -71,4 +112,17 @@ public interface ExplicitMappingKernel<T,O> extends Kernel<T> {
 		return dot.compute(fvs);
 	}
 
+	/**
+	 * Computes kernel by explicit mapping and stores the gram matrix in the
+	 * file tile by tile, such that it may exceed the available memory.
+	 * @see comparison.DisSimilarity#compute(List, TiledGramFile)
+	 * @param set the set of objects
+	 * @param file the file, its dimension must be the size of the set
+	 * @throws IOException
+	 */
+	default void computeExplicit(List<? extends T> set, TiledGramFile file) throws IOException {
+		ArrayList<CompressedFeatureVector> fvs = CompressedFeatureVector.compressAll(getFeatureVectors(set), new FeatureDictionary<O>());
+		GramComputation.computeSymmetric(fvs.size(), (i, j) -> fvs.get(i).dotProduct(fvs.get(j)), file);
+	}
+
 }
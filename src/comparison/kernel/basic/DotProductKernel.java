@@ -1,8 +1,17 @@
 package comparison.kernel.basic;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import comparison.GramComputation;
 import comparison.kernel.ExplicitMappingKernel;
+import datastructure.CSRMatrix;
+import datastructure.CompressedFeatureVector;
+import datastructure.FeatureDictionary;
 import datastructure.FeatureVector;
 import datastructure.SparseFeatureVector;
+import util.kernel.TiledGramFile;
 
 public class DotProductKernel<T> implements ExplicitMappingKernel<FeatureVector<T>,T> {
 
@@ -10,6 +19,31 @@ public class DotProductKernel<T> implements ExplicitMappingKernel<FeatureVector<
 		return g1.dotProduct(g2);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The feature vectors are stacked into a sparse feature matrix X using
+	 * a common dictionary and the gram matrix is obtained as X*X^T.
+	 * @see CSRMatrix#multiplyTransposed()
+	 */
+	@Override
+	public double[][] compute(List<? extends FeatureVector<T>> set) {
+		FeatureDictionary<T> dict = new FeatureDictionary<T>();
+		ArrayList<CompressedFeatureVector> cfvs = CompressedFeatureVector.compressAll(set, dict);
+		return CSRMatrix.fromVectors(cfvs, dict.size()).multiplyTransposed();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The feature vectors are compressed using a common dictionary.
+	 */
+	@Override
+	public void compute(List<? extends FeatureVector<T>> set, TiledGramFile file) throws IOException {
+		ArrayList<CompressedFeatureVector> cfvs = CompressedFeatureVector.compressAll(set, new FeatureDictionary<T>());
+		GramComputation.computeSymmetric(cfvs.size(), (i, j) -> cfvs.get(i).dotProduct(cfvs.get(j)), file);
+	}
+
 	public String getID() {
 		return "IP";
 	}
@@ -1,9 +1,16 @@
 package comparison.kernel.basic;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import comparison.GramComputation;
 import comparison.kernel.Kernel;
+import datastructure.CompressedFeatureVector;
+import datastructure.FeatureDictionary;
 import datastructure.FeatureVector;
+import util.kernel.TiledGramFile;
 
 public class HistogramIntersectionKernel<T> implements Kernel<FeatureVector<T>> {
 
@@ -24,6 +31,29 @@ public class HistogramIntersectionKernel<T> implements Kernel<FeatureVector<T>>
 		return min;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The feature vectors are converted to {@link CompressedFeatureVector}s 
+	 * using a common dictionary before computing all intersections.
+	 */
+	@Override
+	public double[][] compute(List<? extends FeatureVector<T>> set) {
+		ArrayList<CompressedFeatureVector> cfvs = CompressedFeatureVector.compressAll(set, new FeatureDictionary<T>());
+		return GramComputation.computeSymmetric(cfvs.size(), (i, j) -> cfvs.get(i).histogramIntersection(cfvs.get(j)));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The feature vectors are compressed using a common dictionary.
+	 */
+	@Override
+	public void compute(List<? extends FeatureVector<T>> set, TiledGramFile file) throws IOException {
+		ArrayList<CompressedFeatureVector> cfvs = CompressedFeatureVector.compressAll(set, new FeatureDictionary<T>());
+		GramComputation.computeSymmetric(cfvs.size(), (i, j) -> cfvs.get(i).histogramIntersection(cfvs.get(j)), file);
+	}
+
 	public String getID() {
 		return "HI";
 	}
@@ -0,0 +1,549 @@
+package comparison.kernel.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+import comparison.kernel.ExplicitMappingKernel;
+import comparison.kernel.basic.DotProductKernel;
+import concepts.TransformationTools;
+import datastructure.FeatureVector;
+import datastructure.SparseFeatureVector;
+import graph.LGraph;
+import util.concurrent.ParallelTools;
+
+/**
+ * A graphlet kernel taking connected induced subgraphs with 3 to 5
+ * vertices and discrete vertex and edge labels into account, see
+ * {@link GraphletKernel}.
+ *
+ * In exact mode all connected induced subgraphs are enumerated exactly
+ * once by the ESU algorithm of
+ *
+ *  S. Wernicke,
+ *  "Efficient detection of network motifs,"
+ *  IEEE/ACM Trans. Comput. Biol. Bioinform., vol. 3, no. 4, pp. 347–359, 2006.
+ *
+ * Since the number of graphlets grows rapidly with the size and the
+ * degrees, the counts can be estimated from a fixed number of samples
+ * instead: A sample is obtained by starting at a vertex chosen uniformly
+ * at random and repeatedly adding a random vertex adjacent to the sampled
+ * ones. Each sampled graphlet is weighted by the inverse of the
+ * probability of obtaining its vertex set, such that the feature vector
+ * is an unbiased estimate of the exact counts. The samples of each graph
+ * are drawn from a separate random number generator, whose seed is derived
+ * from the given seed and the position of the graph in the list, hence the
+ * feature vectors do not depend on the order of computation and the
+ * samples of different graphs are not correlated.
+ *
+ * The canonical form of a graphlet is the lexicographically smallest
+ * sequence of the vertex label ids followed by the edge label ids of all
+ * pairs of vertices (0 if not adjacent) over all orders of the vertices.
+ * The feature is the sequence of vertex labels followed by the labeled
+ * edges, separated by {@link GraphletKernel#DELIMITER}.
+ *
+ * @param <V>
+ * @param <E>
+ */
+public class ConnectedGraphletKernel<V,E> implements ExplicitMappingKernel<LGraph<V, E>, String> {
+
+	private final int size;
+	private final int samples;
+	private final long seed;
+
+	// all orders of the vertices of a graphlet
+	private final int[][] permutations;
+
+	private DotProductKernel<String> dotProd;
+
+	// labels and their ids
+	private LabeledAdjacency.LabelIds labels;
+
+	/**
+	 * Creates a kernel counting all graphlets exactly.
+	 * @param size the number of vertices of the graphlets
+	 */
+	public ConnectedGraphletKernel(int size) {
+		this(size, 0, 0);
+	}
+
+	/**
+	 * Creates a kernel estimating the graphlet counts from samples.
+	 * @param size the number of vertices of the graphlets
+	 * @param samples the number of samples per graph or 0 for exact
+	 * enumeration
+	 * @param seed the seed of the random number generator
+	 */
+	public ConnectedGraphletKernel(int size, int samples, long seed) {
+		if (size < 3 || size > 5) {
+			throw new IllegalArgumentException("Graphlet size must be between 3 and 5.");
+		}
+		if (samples < 0) {
+			throw new IllegalArgumentException("Number of samples must not be negative.");
+		}
+		this.size = size;
+		this.samples = samples;
+		this.seed = seed;
+		this.permutations = permutations(size);
+		dotProd = new DotProductKernel<String>();
+		labels = new LabeledAdjacency.LabelIds();
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the number of samples per graph or 0 if the graphlets are
+	 * enumerated exactly
+	 */
+	public int getSamples() {
+		return samples;
+	}
+
+	/**
+	 * Computes the feature vector of a graph, which is sampled as the
+	 * first graph of a list if the counts are estimated.
+	 * @see #getFeatureVector(LGraph, int)
+	 */
+	public SparseFeatureVector<String> getFeatureVector(LGraph<V, E> lg) {
+		return getFeatureVector(lg, 0);
+	}
+
+	/**
+	 * Computes the feature vector of the graph at the given position of a
+	 * list. The samples are drawn from a random number generator, whose
+	 * seed is derived from the seed of the kernel and the position.
+	 * @param lg the graph
+	 * @param index the position of the graph
+	 * @return the feature vector
+	 */
+	public SparseFeatureVector<String> getFeatureVector(LGraph<V, E> lg, int index) {
+		Counter c = new Counter(lg);
+		if (samples == 0) {
+			c.enumerate();
+		} else {
+			c.sample(new Random(graphSeed(index)));
+		}
+		SparseFeatureVector<String> r = new SparseFeatureVector<String>();
+		for (Map.Entry<Key, double[]> e : c.counts.entrySet()) {
+			r.increase(toString(e.getKey().seq), e.getValue()[0]);
+		}
+		return r;
+	}
+
+	@Override
+	public ArrayList<FeatureVector<String>> getFeatureVectors(List<? extends LGraph<V, E>> list) {
+		if (ParallelTools.isParallel()) {
+			return getFeatureVectors(list, ParallelTools.getPool());
+		}
+		ArrayList<FeatureVector<String>> r = new ArrayList<FeatureVector<String>>(list.size());
+		for (int i=0; i<list.size(); i++) {
+			r.add(getFeatureVector(list.get(i), i));
+		}
+		return r;
+	}
+
+	@Override
+	public ArrayList<FeatureVector<String>> getFeatureVectors(List<? extends LGraph<V, E>> list, ExecutorService executor) {
+		ArrayList<Integer> indices = new ArrayList<Integer>(list.size());
+		for (int i=0; i<list.size(); i++) {
+			indices.add(i);
+		}
+		return TransformationTools.transformAll(i -> getFeatureVector(list.get(i), i), indices, executor);
+	}
+
+	/**
+	 * Derives the seed for the graph at the given position by the
+	 * finalizer of SplitMix64, such that the generators of different
+	 * graphs are not correlated.
+	 */
+	private long graphSeed(int index) {
+		long z = seed + (index+1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Counts the graphlets of a single graph.
+	 */
+	private class Counter {
+
+		final int n;
+		// adjacency lists with the label ids of vertices and incident edges
+		final int[] vLabel;
+		final int[] start;
+		final int[] adj;
+		final int[] adjLabel;
+
+		// vertices of the current graphlet and their positions
+		final int[] sub = new int[size];
+		final int[] pos;
+		// number of adjacent vertices in the current graphlet (ESU)
+		final int[] adjCount;
+		// extension sets by depth (ESU)
+		final int[][] ext = new int[size][];
+		final int[] mark;
+		int stamp = 0;
+
+		// sampling probabilities of the subsets of the current graphlet
+		int[] nbrMask;
+		final int[] nbrs = new int[size];
+		final int[] inner = new int[1 << size];
+		final int[] outside = new int[1 << size];
+		final double[] prob = new double[1 << size];
+
+		// canonical form
+		final int[] label = new int[size];
+		final int[][] edge = new int[size][size];
+		final int[] best = new int[size + size*(size-1)/2];
+		final int[] seq = new int[best.length];
+		final Key probe = new Key(best);
+		final HashMap<Key, double[]> counts = new HashMap<>();
+
+		Counter(LGraph<V, E> lg) {
+			LabeledAdjacency a = new LabeledAdjacency(lg, labels);
+			n = a.n;
+			vLabel = a.vLabel;
+			start = a.start;
+			adj = a.adj;
+			adjLabel = a.adjLabel;
+			pos = new int[n];
+			Arrays.fill(pos, -1);
+			adjCount = new int[n];
+			mark = new int[n];
+			for (int d=0; d<size; d++) {
+				ext[d] = new int[16];
+			}
+		}
+
+		/**
+		 * Enumerates each connected induced subgraph exactly once by
+		 * extending it with vertices having a larger index than its first
+		 * vertex and not adjacent to the vertices added before.
+		 */
+		void enumerate() {
+			for (int v=0; v<n; v++) {
+				add(0, v);
+				int extSize = 0;
+				stamp++;
+				for (int p=start[v]; p<start[v+1]; p++) {
+					int u = adj[p];
+					if (u > v && mark[u] != stamp) {
+						mark[u] = stamp;
+						extSize = append(0, extSize, u);
+					}
+				}
+				extend(1, extSize, v);
+				remove(0, v);
+			}
+		}
+
+		private void extend(int depth, int extSize, int root) {
+			if (depth == size) {
+				count(1);
+				return;
+			}
+			int[] e = ext[depth-1];
+			while (extSize > 0) {
+				int w = e[--extSize];
+				// remaining extension and exclusive neighbors of w
+				int nextSize = 0;
+				if (depth+1 < size) {
+					if (ext[depth].length < extSize) {
+						ext[depth] = new int[Math.max(extSize, 2*ext[depth].length)];
+					}
+					System.arraycopy(e, 0, ext[depth], 0, extSize);
+					nextSize = extSize;
+					stamp++;
+					for (int p=start[w]; p<start[w+1]; p++) {
+						int u = adj[p];
+						if (u > root && pos[u] == -1 && adjCount[u] == 0 && mark[u] != stamp) {
+							mark[u] = stamp;
+							nextSize = append(depth, nextSize, u);
+						}
+					}
+				}
+				add(depth, w);
+				extend(depth+1, nextSize, root);
+				remove(depth, w);
+			}
+		}
+
+		private int append(int depth, int extSize, int u) {
+			if (extSize == ext[depth].length) {
+				ext[depth] = Arrays.copyOf(ext[depth], 2*extSize);
+			}
+			ext[depth][extSize] = u;
+			return extSize+1;
+		}
+
+		private void add(int depth, int v) {
+			sub[depth] = v;
+			pos[v] = depth;
+			for (int p=start[v]; p<start[v+1]; p++) {
+				adjCount[adj[p]]++;
+			}
+		}
+
+		private void remove(int depth, int v) {
+			pos[v] = -1;
+			for (int p=start[v]; p<start[v+1]; p++) {
+				adjCount[adj[p]]--;
+			}
+		}
+
+		/**
+		 * Draws the samples and adds each graphlet weighted by the inverse
+		 * of the probability of its vertex set. Samples, which do not reach
+		 * the size of the graphlets, are discarded.
+		 */
+		void sample(Random rnd) {
+			if (n == 0) return;
+			nbrMask = new int[n];
+			for (int s=0; s<samples; s++) {
+				int v = rnd.nextInt(n);
+				add(0, v);
+				int depth = 1;
+				for (; depth<size; depth++) {
+					int b = boundary(depth);
+					if (b == 0) break;
+					add(depth, ext[0][rnd.nextInt(b)]);
+				}
+				if (depth == size) {
+					count(1d / (samples * probability()));
+				}
+				for (int d=0; d<depth; d++) {
+					remove(d, sub[d]);
+				}
+			}
+		}
+
+		/**
+		 * Computes the distinct vertices adjacent to the first vertices of
+		 * the graphlet, which are not contained in it.
+		 * @return the number of vertices stored in ext[0]
+		 */
+		private int boundary(int depth) {
+			int b = 0;
+			stamp++;
+			for (int i=0; i<depth; i++) {
+				int v = sub[i];
+				for (int p=start[v]; p<start[v+1]; p++) {
+					int u = adj[p];
+					if (pos[u] == -1 && mark[u] != stamp) {
+						mark[u] = stamp;
+						b = append(0, b, u);
+					}
+				}
+			}
+			return b;
+		}
+
+		/**
+		 * Computes the probability that a sample yields the vertex set of
+		 * the current graphlet by summing over all orders, in which it can
+		 * be sampled, by dynamic programming over its subsets.
+		 */
+		private double probability() {
+			int full = (1 << size) - 1;
+			// neighbors within the graphlet and the number of vertices outside
+			// of it by their neighbors in the graphlet
+			Arrays.fill(nbrs, 0);
+			Arrays.fill(outside, 0);
+			int touched = 0;
+			stamp++;
+			for (int i=0; i<size; i++) {
+				int v = sub[i];
+				for (int p=start[v]; p<start[v+1]; p++) {
+					int u = adj[p];
+					int j = pos[u];
+					if (j != -1) {
+						if (j != i) nbrs[i] |= 1 << j;
+					} else {
+						if (mark[u] != stamp) {
+							mark[u] = stamp;
+							nbrMask[u] = 0;
+							touched = append(0, touched, u);
+						}
+						nbrMask[u] |= 1 << i;
+					}
+				}
+			}
+			for (int t=0; t<touched; t++) {
+				outside[nbrMask[ext[0][t]]]++;
+			}
+			// outside[m] becomes the number of vertices with neighbors in m only
+			for (int b=0; b<size; b++) {
+				for (int m=0; m<=full; m++) {
+					if ((m & (1 << b)) != 0) outside[m] += outside[m ^ (1 << b)];
+				}
+			}
+
+			Arrays.fill(prob, 0d);
+			for (int i=0; i<size; i++) {
+				prob[1 << i] = 1d / n;
+			}
+			for (int set=1; set<full; set++) {
+				int low = Integer.numberOfTrailingZeros(set);
+				inner[set] = inner[set & (set-1)] | nbrs[low];
+				if (prob[set] == 0) continue;
+				int boundary = Integer.bitCount(inner[set] & ~set) + touched - outside[full & ~set];
+				double pNext = prob[set] / boundary;
+				for (int i=0; i<size; i++) {
+					if ((set & (1 << i)) == 0 && (nbrs[i] & set) != 0) {
+						prob[set | (1 << i)] += pNext;
+					}
+				}
+			}
+			return prob[full];
+		}
+
+		/**
+		 * Adds the value to the count of the canonical form of the current
+		 * graphlet.
+		 */
+		private void count(double value) {
+			for (int i=0; i<size; i++) {
+				int v = sub[i];
+				label[i] = vLabel[v];
+				Arrays.fill(edge[i], 0);
+			}
+			for (int i=0; i<size; i++) {
+				int v = sub[i];
+				for (int p=start[v]; p<start[v+1]; p++) {
+					int j = pos[adj[p]];
+					if (j > i) {
+						edge[i][j] = edge[j][i] = adjLabel[p]+1;
+					}
+				}
+			}
+			canonicalForm();
+			probe.update();
+			double[] c = counts.get(probe);
+			if (c == null) {
+				counts.put(new Key(best.clone()), new double[] { value });
+			} else {
+				c[0] += value;
+			}
+		}
+
+		private void canonicalForm() {
+			boolean first = true;
+			for (int[] perm : permutations) {
+				// vertex labels must be sorted in the smallest sequence
+				boolean sorted = true;
+				for (int i=1; i<size && sorted; i++) {
+					sorted = label[perm[i-1]] <= label[perm[i]];
+				}
+				if (!sorted) continue;
+				if (first) {
+					for (int i=0; i<size; i++) {
+						best[i] = label[perm[i]];
+					}
+				}
+				// the labels are equal for all sorted orders, compare the edges
+				// and stop as soon as the sequence is larger
+				int k = size, cmp = first ? -1 : 0;
+				for (int i=0; i<size && cmp <= 0; i++) {
+					int[] row = edge[perm[i]];
+					for (int j=i+1; j<size; j++, k++) {
+						int e = row[perm[j]];
+						if (cmp == 0) {
+							if (e > best[k]) {
+								cmp = 1;
+								break;
+							}
+							if (e < best[k]) cmp = -1;
+						}
+						seq[k] = e;
+					}
+				}
+				if (cmp < 0) System.arraycopy(seq, size, best, size, seq.length-size);
+				first = false;
+			}
+		}
+	}
+
+	/**
+	 * @return all permutations of 0, ..., size-1
+	 */
+	private static int[][] permutations(int size) {
+		ArrayList<int[]> r = new ArrayList<>();
+		permutations(new int[size], 0, 0, r);
+		return r.toArray(new int[r.size()][]);
+	}
+
+	private static void permutations(int[] perm, int length, int used, ArrayList<int[]> r) {
+		if (length == perm.length) {
+			r.add(perm.clone());
+			return;
+		}
+		for (int i=0; i<perm.length; i++) {
+			if ((used & (1 << i)) != 0) continue;
+			perm[length] = i;
+			permutations(perm, length+1, used | (1 << i), r);
+		}
+	}
+
+	/**
+	 * Canonical sequence used as hash key.
+	 */
+	private static class Key {
+		final int[] seq;
+		int hash;
+
+		Key(int[] seq) {
+			this.seq = seq;
+			update();
+		}
+
+		void update() {
+			hash = Arrays.hashCode(seq);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && Arrays.equals(seq, ((Key)obj).seq);
+		}
+	}
+
+	private String toString(int[] seq) {
+		char d = GraphletKernel.DELIMITER;
+		StringBuilder sb = new StringBuilder();
+		for (int i=0; i<size; i++) {
+			if (i != 0) sb.append(d);
+			sb.append(labels.getLabel(seq[i]));
+		}
+		int k = size;
+		for (int i=0; i<size; i++) {
+			for (int j=i+1; j<size; j++) {
+				int e = seq[k++];
+				if (e == 0) continue;
+				sb.append(d).append(i).append(j).append(':').append(labels.getLabel(e-1));
+			}
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public double compute(LGraph<V, E> g1, LGraph<V, E> g2) {
+		return dotProd.compute(getFeatureVector(g1), getFeatureVector(g2));
+	}
+
+	@Override
+	public String getID() {
+		return "GL"+size + (samples == 0 ? "" : "_S"+samples);
+	}
+
+}
@@ -1,11 +1,15 @@
 package comparison.kernel.graph;
 
+import java.util.List;
 import java.util.Map.Entry;
 
 import comparison.kernel.ExplicitMappingKernel;
 import comparison.kernel.Kernel;
 import comparison.kernel.basic.DiracKernel;
+import concepts.TransformationTools;
 import datastructure.FeatureVector;
+import datastructure.LongDoubleHashMap;
+import datastructure.LongFeatureVector;
 import datastructure.SparseFeatureVector;
 import datastructure.Triple;
 import graph.Graph;
@@ -36,7 +40,8 @@ import graph.properties.VertexArray;
  * a triple (l(u), l((u,v)), l(v)) for an edge (u, v), where l assigns 
  * a label to the two endpoints and the edge itself, respectively. Note 
  * that for each edge two such triples are generated where the position 
- * of u and v is swapped.
+ * of u and v is swapped. For Dirac kernels the triples are represented
+ * by packed label ids, see {@link #getLongFeatureVector(LGraph)}.
  * 
  * 
  * @author kriege
@@ -49,6 +54,7 @@ public class EdgeKernel<V, E> implements ExplicitMappingKernel<LGraph<V, E>, Tri
 
 	Kernel<? super E> edgeKernel;
 	Kernel<? super V> vertexKernel;
+	LabelTripleEncoder encoder = new LabelTripleEncoder();
 	
 	public EdgeKernel(Kernel<? super E> edgeKernel, Kernel<? super V> vertexKernel) {
 		this.edgeKernel = edgeKernel;
@@ -150,7 +156,7 @@ public class EdgeKernel<V, E> implements ExplicitMappingKernel<LGraph<V, E>, Tri
 	@Override
 	public FeatureVector<Triple<?, ?, ?>> getFeatureVector(LGraph<V, E> in)	throws IllegalStateException {
 		if (!(vertexKernel instanceof ExplicitMappingKernel) || !(edgeKernel instanceof ExplicitMappingKernel)) {
-			throw new IllegalStateException("Explicit mapping requires both, vertex and edge kernel, to support explicit mapping!");
+			throw new UnsupportedMappingException("Explicit mapping requires both, vertex and edge kernel, to support explicit mapping!");
 		}
 		
 		Graph g = in.getGraph();
@@ -169,6 +175,53 @@ public class EdgeKernel<V, E> implements ExplicitMappingKernel<LGraph<V, E>, Tri
 		return r;
 	}
 	
+	/**
+	 * Computes the feature vector for Dirac vertex and edge kernels, which
+	 * identify labels by their string representation. Each triple is
+	 * represented by a long key composed of label ids.
+	 * @throws IllegalStateException if vertex or edge kernel is not a 
+	 * Dirac kernel
+	 */
+	public LongFeatureVector getLongFeatureVector(LGraph<V, E> in) throws IllegalStateException {
+		if (!isDirac()) {
+			throw new IllegalStateException("Packed feature keys require Dirac vertex and edge kernels!");
+		}
+		
+		Graph g = in.getGraph();
+		VertexArray<V> va = in.getVertexLabel();
+		EdgeArray<E> ea = in.getEdgeLabel();
+		
+		LongDoubleHashMap r = new LongDoubleHashMap();
+		for (Edge e : g.edges()) {
+			int lu = encoder.getVertexLabelId(va.get(e.getFirstVertex()).toString());
+			int lv = encoder.getVertexLabelId(va.get(e.getSecondVertex()).toString());
+			int le = encoder.getEdgeLabelId(ea.get(e).toString());
+			r.add(LabelTripleEncoder.encode(lu, le, lv), 1d);
+			r.add(LabelTripleEncoder.encode(lv, le, lu), 1d);
+		}
+		
+		return new LongFeatureVector(r);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * For Dirac vertex and edge kernels the feature vectors are obtained 
+	 * from {@link #getLongFeatureVector(LGraph)}.
+	 */
+	@Override
+	public double[][] computeExplicit(List<? extends LGraph<V, E>> set) {
+		if (!isDirac()) {
+			return ExplicitMappingKernel.super.computeExplicit(set);
+		}
+		return LabelTripleEncoder.computeGram(() -> TransformationTools.transformAllParallel(this::getLongFeatureVector, set), 
+				false, () -> ExplicitMappingKernel.super.computeExplicit(set));
+	}
+	
+	private boolean isDirac() {
+		return vertexKernel instanceof DiracKernel && edgeKernel instanceof DiracKernel;
+	}
+	
 	@SuppressWarnings("unchecked")
 	private FeatureVector<Triple<?, ?, ?>> getKroneckerProduct(V lu, E le, V lv) {
 		FeatureVector<Triple<?, ?, ?>> r = new SparseFeatureVector<Triple<?,?,?>>();
@@ -1,7 +1,12 @@
 package comparison.kernel.graph;
 
+import java.util.List;
+
 import comparison.kernel.ExplicitMappingKernel;
+import concepts.TransformationTools;
 import datastructure.FeatureVector;
+import datastructure.LongDoubleHashMap;
+import datastructure.LongFeatureVector;
 import datastructure.SparseFeatureVector;
 import datastructure.Triple;
 import graph.Graph;
@@ -16,6 +21,9 @@ import graph.properties.VertexArray;
  * match if at least one mapping of their endpoints exactly 
  * matches vertex and edge labels.
  * 
+ * The gram matrix is computed from feature vectors with triples
+ * represented by packed label ids, see {@link #getLongFeatureVector(LGraph)}.
+ * 
  * @author kriege
  *
  * @param <V> vertex label type
@@ -25,6 +33,8 @@ import graph.properties.VertexArray;
 public class EdgeKernelUnorientedExact<V extends Comparable<V>, E> implements ExplicitMappingKernel<LGraph<V, E>, Triple<V, E, V>>
 {
 
+	LabelTripleEncoder encoder = new LabelTripleEncoder();
+
 	@Override
 	public double compute(LGraph<V, E> g1, LGraph<V, E> g2) {
 		return getFeatureVector(g1).dotProduct(getFeatureVector(g2));
@@ -53,6 +63,49 @@ public class EdgeKernelUnorientedExact<V extends Comparable<V>, E> implements Ex
 		return r;
 	}
 	
+	/**
+	 * Computes the feature vector, where each triple is represented by a
+	 * long key composed of label ids. Labels are identified by their
+	 * equals() method.
+	 */
+	public LongFeatureVector getLongFeatureVector(LGraph<V, E> in) {
+		LongDoubleHashMap r = new LongDoubleHashMap();
+		
+		Graph g = in.getGraph();
+		VertexArray<V> va = in.getVertexLabel();
+		EdgeArray<E> ea = in.getEdgeLabel();
+
+		for (Edge e : g.edges()) {
+			V labelV1 = va.get(e.getFirstVertex());
+			V labelV2 = va.get(e.getSecondVertex());
+			int lu = encoder.getVertexLabelId(labelV1);
+			int lv = encoder.getVertexLabelId(labelV2);
+			int le = encoder.getEdgeLabelId(ea.get(e));
+			
+			if (labelV1.compareTo(labelV2) < 0) {
+				r.add(LabelTripleEncoder.encode(lu, le, lv), 1d);
+			} else {
+				r.add(LabelTripleEncoder.encode(lv, le, lu), 1d);
+			}
+		}
+		
+		return new LongFeatureVector(r);
+	}
+	
+	/**
+	 * Computes the feature vectors of all graphs in parallel.
+	 * @see #getLongFeatureVector(LGraph)
+	 */
+	public List<LongFeatureVector> getLongFeatureVectors(List<? extends LGraph<V, E>> set) {
+		return TransformationTools.transformAllParallel(this::getLongFeatureVector, set);
+	}
+	
+	@Override
+	public double[][] computeExplicit(List<? extends LGraph<V, E>> set) {
+		return LabelTripleEncoder.computeGram(() -> getLongFeatureVectors(set), 
+				false, () -> ExplicitMappingKernel.super.computeExplicit(set));
+	}
+	
 	public String getID() {
 		return "ELU";
 	}
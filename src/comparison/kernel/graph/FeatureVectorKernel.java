@@ -1,5 +1,6 @@
 package comparison.kernel.graph;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -7,6 +8,7 @@ import comparison.kernel.ExplicitMappingKernel;
 import comparison.kernel.Kernel;
 import datastructure.FeatureVector;
 import graph.LGraph;
+import util.kernel.TiledGramFile;
 
 /**
  * Applies a kernel to the feature vectors obtained from an explicit
@@ -20,8 +22,6 @@ import graph.LGraph;
  */
 public class FeatureVectorKernel<V, E, F> implements Kernel<LGraph<V, E>> {
 
-	ArrayList<LGraph<V, E>> graphs = new ArrayList<>(2);
-
 	ExplicitMappingKernel<LGraph<V, E>, F> explicitKernel;
 	Kernel<FeatureVector<F>> fvKernel;
 	
@@ -32,8 +32,9 @@ public class FeatureVectorKernel<V, E, F> implements Kernel<LGraph<V, E>> {
 	
 	@Override
 	public double compute(LGraph<V, E> g1, LGraph<V, E> g2) {
-		graphs.set(0, g1);
-		graphs.add(1, g2);
+		ArrayList<LGraph<V, E>> graphs = new ArrayList<>(2);
+		graphs.add(g1);
+		graphs.add(g2);
 		ArrayList<FeatureVector<F>> maps = explicitKernel.getFeatureVectors(graphs);
 		return fvKernel.compute(maps.get(0), maps.get(1));
 	}
@@ -44,6 +45,12 @@ public class FeatureVectorKernel<V, E, F> implements Kernel<LGraph<V, E>> {
 		return fvKernel.compute(maps);
 	}
 
+	@Override
+	public void compute(List<? extends LGraph<V, E>> set, TiledGramFile file) throws IOException {
+		ArrayList<FeatureVector<F>> maps = explicitKernel.getFeatureVectors(set);
+		fvKernel.compute(maps, file);
+	}
+
 	@Override
 	public String getID() {
 		return "FV-"+fvKernel.getID()+"-"+explicitKernel.getID();
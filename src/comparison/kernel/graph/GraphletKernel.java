@@ -1,17 +1,12 @@
 package comparison.kernel.graph;
 
 import java.util.Arrays;
-import java.util.Map.Entry;
 
 import comparison.kernel.ExplicitMappingKernel;
 import comparison.kernel.basic.DotProductKernel;
+import datastructure.LongDoubleHashMap;
 import datastructure.SparseFeatureVector;
-import graph.Graph;
-import graph.Graph.Edge;
-import graph.Graph.Vertex;
 import graph.LGraph;
-import graph.properties.EdgeArray;
-import graph.properties.VertexArray;
 
 /**
  * A graphlet kernel taking connected induced subgraphs with three 
@@ -27,6 +22,16 @@ import graph.properties.VertexArray;
  *  N. Shervashidze, P. Schweitzer, E. van Leeuwen, K. Mehlhorn, and K. Borgwardt,
  *  "Weisfeiler-lehman graph kernels,"
  *  JMLR, vol. 12, pp. 2539–2561, 2011.
+ *  
+ * Each connected induced subgraph is enumerated exactly once: a path 
+ * u-v-w is found from its center v, a triangle from its vertex with the 
+ * smallest index. Vertex and edge labels are identified by their string
+ * representation and mapped to ids. The canonical form of a graphlet is 
+ * the lexicographically smallest sequence of label ids obtained by 
+ * traversing it from one end (path) or any vertex in either direction
+ * (triangle). If all ids are smaller than 2^10 the sequence
+ * is packed into a long code; the feature is the sequence of labels 
+ * separated by {@link #DELIMITER}.
  *   
  * @author kriege
  *
@@ -34,85 +39,146 @@ import graph.properties.VertexArray;
  * @param <E>
  */
 public class GraphletKernel<V,E> implements ExplicitMappingKernel<LGraph<V, E>, String> {
+	
+	public static char DELIMITER = '|';
+	
+	private static final int ID_BITS = 10;
+	private static final int MAX_ID = (1 << ID_BITS) - 1;
+	private static final long TRIANGLE = 1L << 6*ID_BITS;
+	
 	private DotProductKernel<String> dotProd;
 	
+	// labels and their ids
+	private LabeledAdjacency.LabelIds labels;
+	
 	public GraphletKernel() {
 		dotProd = new DotProductKernel<String>();
+		labels = new LabeledAdjacency.LabelIds();
 	}
 
 	public SparseFeatureVector<String> getFeatureVector(LGraph<V, E> lg) {
+		LabeledAdjacency a = new LabeledAdjacency(lg, labels);
+		int n = a.n;
+		int[] vLabel = a.vLabel;
+		int[] start = a.start;
+		int[] adj = a.adj;
+		int[] adjLabel = a.adjLabel;
+		
+		LongDoubleHashMap codes = new LongDoubleHashMap();
 		SparseFeatureVector<String> r = new SparseFeatureVector<String>();
-		Graph g = lg.getGraph();
-		// TODO use index to avoid duplicates, i.e., i(u) < i(v) < i(w)
-		for (Vertex u : g.vertices()) {
-			for (Edge e : u.edges()) {
-				Vertex v = e.getOppositeVertex(u);
-				for (Edge f : v.edges()) {
-					if (e == f) continue; // all three vertices/edges must be different!
-					Vertex w = f.getOppositeVertex(v);
-					Edge d = g.getEdge(u, w);
-					if (d != null) {
-						// triangle
-						String[] canon = {
-								triangleString(lg, u, v, w, e, f, d),
-								triangleString(lg, u, w, v, d, f, e),
-								triangleString(lg, v, u, w, e, d, f),
-								triangleString(lg, v, w, u, f, d, e),
-								triangleString(lg, w, v, u, f, e, d),
-								triangleString(lg, w, u, v, d, e, f)
-						};
-						Arrays.sort(canon);
-						r.increase(canon[0],1); // each is found 6 times 
+		int[] seq = new int[6];
+		int[] best = new int[6];
+		// stamp[x] == s iff x is adjacent to the vertex at position s, the
+		// edge is stored at position edgePos[x]
+		int[] stamp = new int[n];
+		Arrays.fill(stamp, -1);
+		int[] edgePos = new int[n];
+		for (int v=0; v<n; v++) {
+			for (int p=start[v]; p<start[v+1]; p++) {
+				int u = adj[p];
+				if (u == v) continue;
+				for (int q=start[u]; q<start[u+1]; q++) {
+					stamp[adj[q]] = p;
+					edgePos[adj[q]] = q;
+				}
+				for (int p2=p+1; p2<start[v+1]; p2++) {
+					int w = adj[p2];
+					if (w == v || w == u) continue;
+					if (stamp[w] == p) {
+						// triangle, counted from its vertex with smallest index
+						if (v > u || v > w) continue;
+						triangle(vLabel[v], adjLabel[p], vLabel[u], adjLabel[edgePos[w]], vLabel[w], adjLabel[p2], seq, best);
+						count(best, 6, codes, r);
 					} else {
-						// path
-						String[] canon = {
-								pathString(lg, u, v, w, e, f),
-								pathString(lg, w, v, u, f, e),
-						};
-						Arrays.sort(canon);
-						r.increase(canon[0],3); // each is found 2 times 
-
+						// path with center v
+						path(vLabel[u], adjLabel[p], vLabel[v], adjLabel[p2], vLabel[w], best);
+						count(best, 5, codes, r);
 					}
 				}
 			}
 		}
-		for (Entry<String, Double> e : r.nonZeroEntries()) {
-			e.setValue(e.getValue()/6);
+		
+		for (int i=0; i<codes.size(); i++) {
+			r.increase(decode(codes.getKey(i)), codes.getValue(i));
 		}
 		return r;
 	}
 	
-	public static char DELIMITER = '|';
-	private String triangleString(LGraph<V, E> lg, Vertex u, Vertex v, Vertex w, Edge e, Edge f, Edge d) {
-		VertexArray<V> va = lg.getVertexLabel();
-		EdgeArray<E> ea = lg.getEdgeLabel();
-		StringBuffer sb = new StringBuffer();
-		sb.append(va.get(u));
-		sb.append(DELIMITER);
-		sb.append(ea.get(e));
-		sb.append(DELIMITER);
-		sb.append(va.get(v));
-		sb.append(DELIMITER);
-		sb.append(ea.get(f));
-		sb.append(DELIMITER);
-		sb.append(va.get(w));
-		sb.append(DELIMITER);
-		sb.append(ea.get(d));
-		return sb.toString();
+	/**
+	 * Computes the canonical sequence of the triangle with vertex labels 
+	 * a, b, c and edge labels ab, bc, ca.
+	 */
+	private static void triangle(int a, int ab, int b, int bc, int c, int ca, int[] seq, int[] best) {
+		best[0] = Integer.MAX_VALUE;
+		int[] l = { a, b, c };
+		int[] el = { ab, bc, ca };
+		for (int i=0; i<3; i++) {
+			// forward: l[i], el[i], l[i+1], el[i+1], l[i+2], el[i+2]
+			for (int j=0; j<3; j++) {
+				seq[2*j] = l[(i+j)%3];
+				seq[2*j+1] = el[(i+j)%3];
+			}
+			if (compare(seq, best, 6) < 0) System.arraycopy(seq, 0, best, 0, 6);
+			// backward: l[i], el[i-1], l[i-1], el[i-2], l[i-2], el[i-3]
+			for (int j=0; j<3; j++) {
+				seq[2*j] = l[(i-j+3)%3];
+				seq[2*j+1] = el[(i-j+2)%3];
+			}
+			if (compare(seq, best, 6) < 0) System.arraycopy(seq, 0, best, 0, 6);
+		}
 	}
-	private String pathString(LGraph<V, E> lg, Vertex u, Vertex v, Vertex w, Edge e, Edge f) {
-		VertexArray<V> va = lg.getVertexLabel();
-		EdgeArray<E> ea = lg.getEdgeLabel();
-		StringBuffer sb = new StringBuffer();
-		sb.append(va.get(u));
-		sb.append(DELIMITER);
-		sb.append(ea.get(e));
-		sb.append(DELIMITER);
-		sb.append(va.get(v));
-		sb.append(DELIMITER);
-		sb.append(ea.get(f));
-		sb.append(DELIMITER);
-		sb.append(va.get(w));
+	
+	/**
+	 * Computes the canonical sequence of the path a-b-c with edge labels
+	 * ab and bc.
+	 */
+	private static void path(int a, int ab, int b, int bc, int c, int[] best) {
+		boolean forward = a < c || (a == c && ab <= bc);
+		best[0] = forward ? a : c;
+		best[1] = forward ? ab : bc;
+		best[2] = b;
+		best[3] = forward ? bc : ab;
+		best[4] = forward ? c : a;
+	}
+	
+	private static int compare(int[] s1, int[] s2, int length) {
+		for (int i=0; i<length; i++) {
+			if (s1[i] != s2[i]) return s1[i] < s2[i] ? -1 : 1;
+		}
+		return 0;
+	}
+	
+	/**
+	 * Counts the canonical sequence by its code or, if an id is too large,
+	 * by its string representation.
+	 */
+	private void count(int[] seq, int length, LongDoubleHashMap codes, SparseFeatureVector<String> r) {
+		long code = length == 6 ? TRIANGLE : 0;
+		for (int i=0; i<length; i++) {
+			if (seq[i] > MAX_ID) {
+				r.increase(toString(seq, length), 1);
+				return;
+			}
+			code |= (long)seq[i] << (length-1-i)*ID_BITS;
+		}
+		codes.add(code, 1);
+	}
+	
+	private String decode(long code) {
+		int length = (code & TRIANGLE) != 0 ? 6 : 5;
+		int[] seq = new int[length];
+		for (int i=0; i<length; i++) {
+			seq[i] = (int)(code >>> (length-1-i)*ID_BITS) & MAX_ID;
+		}
+		return toString(seq, length);
+	}
+	
+	private String toString(int[] seq, int length) {
+		StringBuilder sb = new StringBuilder();
+		for (int i=0; i<length; i++) {
+			if (i != 0) sb.append(DELIMITER);
+			sb.append(labels.getLabel(seq[i]));
+		}
 		return sb.toString();
 	}
 	
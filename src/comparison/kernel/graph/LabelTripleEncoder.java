@@ -0,0 +1,103 @@
+package comparison.kernel.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import comparison.GramComputation;
+import datastructure.CSRMatrix;
+import datastructure.CompressedFeatureVector;
+import datastructure.FeatureDictionary;
+import datastructure.LongFeatureVector;
+
+/**
+ * Packs triples of discrete labels, e.g., (l(u), l(e), l(v)) for an edge
+ * e=(u,v), into long keys: Vertex and edge labels are mapped to ids by
+ * dictionaries identifying labels by equals(), each id occupies
+ * {@link #ID_BITS} bits of the key. This allows to count the triples of a
+ * graph in a {@link datastructure.LongDoubleHashMap} without creating
+ * objects.
+ *
+ * This class is thread-safe.
+ */
+class LabelTripleEncoder {
+
+	/**
+	 * Number of bits of each component of a key.
+	 */
+	static final int ID_BITS = 21;
+	static final int MAX_ID = (1 << ID_BITS) - 1;
+
+	/**
+	 * Thrown if a label id does not fit into its component of a key.
+	 */
+	static class OverflowException extends IllegalStateException {
+		private static final long serialVersionUID = 1L;
+
+		OverflowException() {
+			super("Too many distinct labels for packed feature keys.");
+		}
+	}
+
+	private final FeatureDictionary<Object> vertexLabels = new FeatureDictionary<>();
+	private final FeatureDictionary<Object> edgeLabels = new FeatureDictionary<>();
+
+	public int getVertexLabelId(Object label) {
+		return vertexLabels.getId(label);
+	}
+
+	public int getEdgeLabelId(Object label) {
+		return edgeLabels.getId(label);
+	}
+
+	/**
+	 * Packs the three ids into a single key.
+	 * @throws OverflowException if an id exceeds {@link #MAX_ID}
+	 */
+	public static long encode(int first, int second, int third) throws OverflowException {
+		if (((first | second | third) & ~MAX_ID) != 0) {
+			throw new OverflowException();
+		}
+		return ((long)first << 2*ID_BITS) | ((long)second << ID_BITS) | third;
+	}
+
+	/**
+	 * Computes the gram matrix of the dot products or histogram
+	 * intersections of feature vectors with packed keys. If the labels do
+	 * not fit into the keys, the gram matrix is obtained from the fallback,
+	 * e.g., based on feature vectors with {@link datastructure.Triple} 
+	 * features.
+	 * @param fvs computes the feature vectors with packed keys
+	 * @param intersection true for histogram intersections, false for dot
+	 * products
+	 * @param fallback computes the gram matrix without packed keys
+	 * @return the gram matrix
+	 */
+	public static double[][] computeGram(Supplier<List<LongFeatureVector>> fvs, boolean intersection, Supplier<double[][]> fallback) {
+		List<LongFeatureVector> packed;
+		try {
+			packed = fvs.get();
+		} catch (OverflowException e) {
+			return fallback.get();
+		}
+		return intersection ? computeHistogramIntersections(packed) : computeDotProducts(packed);
+	}
+
+	/**
+	 * Computes the gram matrix of the dot products of the vectors.
+	 */
+	private static double[][] computeDotProducts(List<LongFeatureVector> fvs) {
+		long[] dictionary = LongFeatureVector.getDistinctKeys(fvs);
+		ArrayList<CompressedFeatureVector> cfvs = LongFeatureVector.compressAll(fvs, dictionary);
+		return CSRMatrix.fromVectors(cfvs, dictionary.length).multiplyTransposed();
+	}
+
+	/**
+	 * Computes the gram matrix of the histogram intersections of the
+	 * vectors.
+	 */
+	private static double[][] computeHistogramIntersections(List<LongFeatureVector> fvs) {
+		return GramComputation.computeSymmetric(fvs.size(), (i, j) -> fvs.get(i).histogramIntersection(fvs.get(j)));
+	}
+
+}
@@ -0,0 +1,86 @@
+package comparison.kernel.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import graph.Graph;
+import graph.Graph.Edge;
+import graph.Graph.Vertex;
+import graph.LGraph;
+import graph.properties.EdgeArray;
+import graph.properties.VertexArray;
+
+/**
+ * Adjacency lists of a labeled graph with the label ids of the vertices
+ * and of the incident edges, used by the graphlet kernels. The neighbors
+ * of vertex v are stored in adj from position start[v] to start[v+1]-1,
+ * the label ids of the corresponding edges in adjLabel.
+ */
+class LabeledAdjacency {
+
+	final int n;
+	final int[] vLabel;
+	final int[] start;
+	final int[] adj;
+	final int[] adjLabel;
+
+	/**
+	 * @param lg the labeled graph
+	 * @param labels the label ids shared by all graphs
+	 */
+	LabeledAdjacency(LGraph<?, ?> lg, LabelIds labels) {
+		Graph g = lg.getGraph();
+		VertexArray<?> va = lg.getVertexLabel();
+		EdgeArray<?> ea = lg.getEdgeLabel();
+		n = g.getVertexCount();
+		vLabel = new int[n];
+		start = new int[n+1];
+		int[] adj = new int[2*g.getEdgeCount()];
+		int[] adjLabel = new int[adj.length];
+		int k = 0;
+		for (int i=0; i<n; i++) {
+			Vertex v = g.getVertex(i);
+			vLabel[i] = labels.getId(va.get(v));
+			for (Edge e : v.edges()) {
+				if (k == adj.length) {
+					adj = Arrays.copyOf(adj, 2*k+1);
+					adjLabel = Arrays.copyOf(adjLabel, adj.length);
+				}
+				adj[k] = e.getOppositeVertex(v).getIndex();
+				adjLabel[k++] = labels.getId(ea.get(e));
+			}
+			start[i+1] = k;
+		}
+		this.adj = adj;
+		this.adjLabel = adjLabel;
+	}
+
+	/**
+	 * Maps vertex and edge labels identified by their string representation
+	 * to consecutive ids and back.
+	 *
+	 * This class is thread-safe.
+	 */
+	static class LabelIds {
+
+		private final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+		private final ArrayList<String> labels = new ArrayList<String>();
+
+		synchronized int getId(Object label) {
+			String l = String.valueOf(label);
+			Integer id = ids.get(l);
+			if (id == null) {
+				id = labels.size();
+				ids.put(l, id);
+				labels.add(l);
+			}
+			return id;
+		}
+
+		synchronized String getLabel(int id) {
+			return labels.get(id);
+		}
+	}
+
+}
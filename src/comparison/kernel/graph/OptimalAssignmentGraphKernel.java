@@ -1,8 +1,14 @@
 package comparison.kernel.graph;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import comparison.GramComputation;
+import comparison.GramComputation.GramConsumer;
 import comparison.kernel.ExplicitMappingKernel;
 import comparison.kernel.basic.DiracKernel;
 import comparison.kernel.basic.HistogramIntersectionKernel;
+import datastructure.FeatureVector;
 import datastructure.Triple;
 import graph.LGraph;
 
@@ -37,6 +43,47 @@ public class OptimalAssignmentGraphKernel<V, E, F> extends FeatureVectorKernel<V
 		public String getID() {
 			return "WLOA_"+((WeisfeilerLehmanSubtreeKernel)explicitKernel).getHeight();
 		}
+		
+		/**
+		 * Computes the gram matrix using the colors of the individual iterations
+		 * stored in sorted arrays, see {@link WeisfeilerLehmanHistogram}.
+		 */
+		@SuppressWarnings("unchecked")
+		@Override
+		public double[][] compute(List<? extends LGraph<V, E>> set) {
+			ArrayList<ArrayList<FeatureVector<Integer>>> byIteration = 
+					((WeisfeilerLehmanSubtreeKernel<V, E>)explicitKernel).getFeatureVectorsByIteration(set);
+			ArrayList<WeisfeilerLehmanHistogram> hs = WeisfeilerLehmanHistogram.createAll(byIteration);
+			return GramComputation.computeSymmetric(hs.size(), (i, j) -> hs.get(i).intersection(hs.get(j)));
+		}
+		
+		/**
+		 * Computes the gram matrices for the given heights based on a single
+		 * sequence of refinements. Each pair is compared once by 
+		 * {@link WeisfeilerLehmanHistogram#levelIntersections(WeisfeilerLehmanHistogram)},
+		 * which stops at the first iteration without common colors, and the
+		 * gram matrix for height i is the sum of the intersections of the 
+		 * iterations 0 to i. One matrix is held for each requested height, 
+		 * the consumer is called after all pairs have been compared.
+		 * @param set the graphs
+		 * @param heights the requested heights in ascending order, at most
+		 * the height of this kernel
+		 * @param c receives each requested height and its gram matrix
+		 */
+		@SuppressWarnings("unchecked")
+		public void computeByHeight(List<? extends LGraph<V, E>> set, int[] heights, GramConsumer c) {
+			WeisfeilerLehmanSubtreeKernel<V, E> wl = (WeisfeilerLehmanSubtreeKernel<V, E>)explicitKernel;
+			wl.checkHeights(heights);
+			ArrayList<ArrayList<FeatureVector<Integer>>> byIteration = wl.getFeatureVectorsByIteration(set);
+			ArrayList<WeisfeilerLehmanHistogram> hs = WeisfeilerLehmanHistogram.createAll(byIteration);
+			byIteration = null;
+			double[][][] r = GramComputation.computeSymmetricPrefixSums(hs.size(), 
+					(i, j) -> hs.get(i).levelIntersections(hs.get(j)), heights);
+			for (int i=0; i<heights.length; i++) {
+				c.accept(heights[i], r[i]);
+				r[i] = null;
+			}
+		}
 	}
 
 	public static class Vertex<V,E> extends OptimalAssignmentGraphKernel<V, E, V> {
@@ -50,11 +97,53 @@ public class OptimalAssignmentGraphKernel<V, E, F> extends FeatureVectorKernel<V
 		}
 	}
 
+	public static class Graphlet<V,E> extends OptimalAssignmentGraphKernel<V, E, String> {
+		public Graphlet() {
+			super(new GraphletKernel<V,E>());
+		}
+		
+		@Override
+		public String getID() {
+			return "GL3OA";
+		}
+	}
+
+	public static class ShortestPath<V,E> extends OptimalAssignmentGraphKernel<V, E, Triple<?, ?, ?>> {
+		public ShortestPath() {
+			super(new ShortestPathKernel<V,E>(new DiracKernel(), new DiracKernel()));
+		}
+		
+		/**
+		 * Computes the gram matrix using feature vectors with packed keys,
+		 * see {@link ShortestPathKernel#getLongFeatureVector(LGraph)}.
+		 */
+		@Override
+		public double[][] compute(List<? extends LGraph<V, E>> set) {
+			ShortestPathKernel<V, E> sp = (ShortestPathKernel<V, E>)explicitKernel;
+			return LabelTripleEncoder.computeGram(() -> sp.getLongFeatureVectors(set), true, () -> super.compute(set));
+		}
+		
+		@Override
+		public String getID() {
+			return "SPOA";
+		}
+	}
+
 	public static class EdgeUnoriented<V extends Comparable<V>, E> extends OptimalAssignmentGraphKernel<V, E, Triple<V, E, V>> {
 		public EdgeUnoriented() {
 			super(new EdgeKernelUnorientedExact<V, E>());
 		}
 		
+		/**
+		 * Computes the gram matrix using feature vectors with packed keys,
+		 * see {@link EdgeKernelUnorientedExact#getLongFeatureVector(LGraph)}.
+		 */
+		@Override
+		public double[][] compute(List<? extends LGraph<V, E>> set) {
+			EdgeKernelUnorientedExact<V, E> elu = (EdgeKernelUnorientedExact<V, E>)explicitKernel;
+			return LabelTripleEncoder.computeGram(() -> elu.getLongFeatureVectors(set), true, () -> super.compute(set));
+		}
+		
 		@Override
 		public String getID() {
 			return "ELUOA";
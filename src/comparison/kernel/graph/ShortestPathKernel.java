@@ -1,6 +1,7 @@
 package comparison.kernel.graph;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 import algorithm.shortestpath.SPTools;
@@ -10,8 +11,14 @@ import comparison.kernel.basic.DiracKernel;
 import concepts.Transformation;
 import concepts.TransformationTools;
 import datastructure.FeatureVector;
+import datastructure.LongDoubleHashMap;
+import datastructure.LongFeatureVector;
+import datastructure.SparseFeatureVector;
 import datastructure.Triple;
+import graph.Digraph;
+import graph.Graph;
 import graph.LGraph;
+import graph.properties.VertexArray;
 
 /**
  * Computes the shortest path kernel (Borgwardt, 2005). In addition this 
@@ -24,6 +31,10 @@ import graph.LGraph;
  * {@link #compute(List)}, which only computes the transformation once for
  * each graph.
  * 
+ * If vertex and edge kernels are {@link DiracKernel}s, the feature vectors
+ * are computed directly from the shortest path distances without
+ * constructing the transformation, which requires O(|V|^2) edges.
+ * 
  * @author kriege
  *
  * @param <V> vertex label type
@@ -37,6 +48,7 @@ public class ShortestPathKernel<V, E> implements
 	FloydWarshallTransformation<V> fwt;
 	Kernel<? super Integer> edgeKernel;
 	Kernel<? super V> vertexKernel;
+	LabelTripleEncoder encoder = new LabelTripleEncoder();
 	
 	/**
 	 * Instantiates a new shortest path kernel.
@@ -61,18 +73,152 @@ public class ShortestPathKernel<V, E> implements
 	
 	@Override
 	public double[][] compute(List<? extends LGraph<V, E>> graphs) {
+		if (isDirac()) {
+			return computeExplicit(graphs);
+		}
 		ArrayList<LGraph<V, Integer>> transformedGraphs = 
-				TransformationTools.transformAll(fwt, graphs);
+				TransformationTools.transformAllParallel(fwt, graphs);
 		return ek.compute(transformedGraphs);
 	}
 
 	@Override
 	public FeatureVector<Triple<?, ?, ?>> getFeatureVector(LGraph<V, E> lg) throws IllegalStateException {
+		if (isDirac()) {
+			return getDiracFeatureVector(lg);
+		}
 
 		LGraph<V, Integer> fwtLG = fwt.transform(lg);
 		
 		return ek.getFeatureVector(fwtLG);
 	}
+
+	/**
+	 * Computes the feature vector for Dirac vertex and edge kernels, where
+	 * each triple (l(u), d, l(v)) is represented by a long key composed of
+	 * the ids of the vertex labels and the distance d.
+	 * @throws IllegalStateException if vertex or edge kernel is not a 
+	 * Dirac kernel
+	 * @throws UnsupportedOperationException if the graph is directed
+	 * @see #getFeatureVector(LGraph)
+	 */
+	public LongFeatureVector getLongFeatureVector(LGraph<V, E> lg) throws IllegalStateException {
+		if (!isDirac()) {
+			throw new IllegalStateException("Packed feature keys require Dirac vertex and edge kernels!");
+		}
+		Graph g = lg.getGraph();
+		VertexArray<V> va = lg.getVertexLabel();
+		int[] label = new int[g.getVertexCount()];
+		for (int i=0; i<label.length; i++) {
+			label[i] = encoder.getVertexLabelId(va.get(g.getVertex(i)).toString());
+		}
+		return new LongFeatureVector(countTriples(g, label, LabelTripleEncoder::encode));
+	}
+
+	/**
+	 * Computes the feature vectors with packed keys in parallel.
+	 * @throws IllegalStateException if vertex or edge kernel is not a 
+	 * Dirac kernel
+	 * @see #getLongFeatureVector(LGraph)
+	 */
+	public List<LongFeatureVector> getLongFeatureVectors(List<? extends LGraph<V, E>> set) throws IllegalStateException {
+		return TransformationTools.transformAllParallel(this::getLongFeatureVector, set);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * For Dirac vertex and edge kernels the feature vectors are obtained 
+	 * from {@link #getLongFeatureVector(LGraph)}.
+	 */
+	@Override
+	public double[][] computeExplicit(List<? extends LGraph<V, E>> set) {
+		if (!isDirac()) {
+			return ExplicitMappingKernel.super.computeExplicit(set);
+		}
+		return LabelTripleEncoder.computeGram(() -> getLongFeatureVectors(set), 
+				false, () -> ExplicitMappingKernel.super.computeExplicit(set));
+	}
+
+	private boolean isDirac() {
+		return vertexKernel instanceof DiracKernel && edgeKernel instanceof DiracKernel;
+	}
+
+	/**
+	 * Computes the same feature vector as the {@link EdgeKernel} applied to
+	 * the {@link FloydWarshallTransformation} with Dirac kernels, but
+	 * without constructing the transformation: The triples are counted by
+	 * {@link #countTriples(Graph, int[], TripleKey)} with keys 
+	 * (l(u)*n + d)*L + l(v), where l assigns ids 0, ..., L-1 to the vertex 
+	 * labels of the graph. The triples are created once per distinct key.
+	 */
+	private FeatureVector<Triple<?, ?, ?>> getDiracFeatureVector(LGraph<V, E> lg) {
+		Graph g = lg.getGraph();
+		VertexArray<V> va = lg.getVertexLabel();
+		int n = g.getVertexCount();
+
+		// Dirac kernels identify labels by their string representation
+		HashMap<String, Integer> labelIds = new HashMap<>();
+		ArrayList<String> labels = new ArrayList<>();
+		int[] label = new int[n];
+		for (int i=0; i<n; i++) {
+			String l = va.get(g.getVertex(i)).toString();
+			Integer id = labelIds.get(l);
+			if (id == null) {
+				id = labels.size();
+				labelIds.put(l, id);
+				labels.add(l);
+			}
+			label[i] = id;
+		}
+		long labelCount = labels.size();
+
+		LongDoubleHashMap counts = countTriples(g, label, (lu, d, lv) -> (lu*(long)n + d)*labelCount + lv);
+
+		SparseFeatureVector<Triple<?, ?, ?>> r = new SparseFeatureVector<Triple<?, ?, ?>>();
+		for (int i=0; i<counts.size(); i++) {
+			long key = counts.getKey(i);
+			long rest = key / labelCount;
+			String lu = labels.get((int)(rest / n));
+			String d = Integer.toString((int)(rest % n));
+			String lv = labels.get((int)(key % labelCount));
+			r.increase(new Triple<String, String, String>(lu, d, lv), counts.getValue(i));
+		}
+		return r;
+	}
+	
+	/**
+	 * Maps a triple (l(u), d, l(v)) of label ids and distance to a key.
+	 */
+	private interface TripleKey {
+		public long key(int lu, int d, int lv);
+	}
+	
+	/**
+	 * Counts the triples (l(u), d, l(v)) and (l(v), d, l(u)) for all pairs
+	 * of distinct vertices u, v connected by a shortest path of length d.
+	 * The distances are streamed from the BFS.
+	 * @param g the graph
+	 * @param label the label ids indexed by vertex
+	 * @param k the key of a triple
+	 * @return the counts by key
+	 * @throws UnsupportedOperationException if the graph is directed
+	 */
+	private static LongDoubleHashMap countTriples(Graph g, int[] label, TripleKey k) {
+		if (g instanceof Digraph) {
+			throw new UnsupportedOperationException("This operation is currently not supported for directed graphs.");
+		}
+		int n = g.getVertexCount();
+		LongDoubleHashMap counts = new LongDoubleHashMap();
+		SPTools.visitShortestPaths(g, (u, dist, offset) -> {
+			for (int v=u+1; v<n; v++) {
+				int d = dist[offset+v];
+				if (d == Integer.MAX_VALUE) continue;
+				counts.add(k.key(label[u], d, label[v]), 1d);
+				counts.add(k.key(label[v], d, label[u]), 1d);
+			}
+		});
+		return counts;
+	}
 	
 	/**
 	 * Computes the Floyd Warshall transformation of a graph, i.e. a
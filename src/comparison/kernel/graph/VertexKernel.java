@@ -48,7 +48,7 @@ public class VertexKernel<V, E> implements ExplicitMappingKernel<LGraph<V, E>, V
 	@Override
 	public FeatureVector<V> getFeatureVector(LGraph<V, E> lg) {
 		if (!(vertexKernel instanceof DiracKernel)) {
-			throw new IllegalStateException("Explicit mapping requires the vertex kernel to be a dirac kernel!");
+			throw new UnsupportedMappingException("Explicit mapping requires the vertex kernel to be a dirac kernel!");
 		}
 		
 		Graph g = lg.getGraph();
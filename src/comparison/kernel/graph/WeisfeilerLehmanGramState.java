@@ -0,0 +1,256 @@
+package comparison.kernel.graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import algorithm.graph.isomorphism.labelrefinement.WeisfeilerLehmanColorDictionary;
+import concepts.TransformationTools;
+import datastructure.CompressedFeatureVector;
+import datastructure.InvertedIndex;
+import graph.LGraph;
+
+/**
+ * State of the Weisfeiler-Lehman subtree kernel and the Weisfeiler-Lehman
+ * optimal assignment kernel for a growing sequence of graphs: the color
+ * dictionary and the color histograms of all iterations of the graphs
+ * added so far. The kernel values of newly added graphs are computed from
+ * the stored histograms without refining the previous graphs again.
+ *
+ * The kernel values for height h are the sums of the dot products
+ * ({@link WeisfeilerLehmanSubtreeKernel}) or histogram intersections
+ * ({@link OptimalAssignmentGraphKernel.WeisfeilerLehmanSubtree}) of the
+ * histograms of the iterations 0, ..., h. For height 0 these are the
+ * vertex label kernels {@link VertexKernel} and
+ * {@link OptimalAssignmentGraphKernel.Vertex} with Dirac kernel.
+ *
+ * Since the colors of different iterations are disjoint, the kernel
+ * values for height h are also obtained from the merged histograms of the
+ * iterations 0, ..., h, which allows top-k queries by an
+ * {@link InvertedIndex}.
+ *
+ * The state stores a fingerprint of the graphs added so far provided by
+ * the caller, e.g., {@link benchmark.dataset.SDataset#getPrefixFingerprints()},
+ * which allows to detect that the graphs of the data set have changed.
+ *
+ * @see #computeColumns(int, int, int[], boolean)
+ * @see #createIndex(int)
+ */
+public class WeisfeilerLehmanGramState implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final WeisfeilerLehmanColorDictionary dictionary;
+	private final ArrayList<CompressedFeatureVector[]> histograms;
+	private long fingerprint;
+
+	/**
+	 * Creates an empty state.
+	 * @param height the maximum height of the kernels
+	 */
+	public WeisfeilerLehmanGramState(int height) {
+		this.dictionary = new WeisfeilerLehmanColorDictionary(height);
+		this.histograms = new ArrayList<>();
+	}
+
+	public int getHeight() {
+		return dictionary.getHeight();
+	}
+
+	/**
+	 * @return the number of graphs added so far
+	 */
+	public int size() {
+		return histograms.size();
+	}
+
+	public WeisfeilerLehmanColorDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/**
+	 * @return the fingerprint of the graphs added so far, 0 for an empty
+	 * state
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Appends the graphs, the histograms are computed in parallel.
+	 * @param graphs the graphs
+	 * @param fingerprint the fingerprint of all graphs including the new
+	 * ones
+	 */
+	public void addAll(List<? extends LGraph<?, ?>> graphs, long fingerprint) {
+		histograms.addAll(TransformationTools.transformAllParallel(dictionary::getFeatureVectorsByIteration, graphs));
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * Computes the columns from, ..., to-1 of the upper triangle of the gram
+	 * matrices for the given heights. The columns are computed in parallel.
+	 * @param from the first column (inclusive)
+	 * @param to the last column (exclusive), at most {@link #size()}
+	 * @param heights the heights, each at most {@link #getHeight()}
+	 * @param assignment true for the optimal assignment kernel, false for
+	 * the subtree kernel
+	 * @return r[h][c] contains the entries 0, ..., from+c of column from+c
+	 * of the gram matrix for height heights[h]
+	 */
+	public double[][][] computeColumns(int from, int to, int[] heights, boolean assignment) {
+		int maxHeight = 0;
+		for (int h : heights) {
+			if (h < 0 || h > getHeight()) {
+				throw new IllegalArgumentException("Height "+h+" exceeds the height of the state.");
+			}
+			maxHeight = Math.max(maxHeight, h);
+		}
+		int m = maxHeight;
+		ArrayList<Integer> columns = new ArrayList<>(to-from);
+		for (int i=from; i<to; i++) {
+			columns.add(i);
+		}
+		ArrayList<double[][]> byColumn = TransformationTools.transformAllParallel(i -> 
+			compute(histograms.get(i), i+1, m, heights, assignment), columns);
+
+		double[][][] r = new double[heights.length][to-from][];
+		for (int c=0; c<byColumn.size(); c++) {
+			for (int h=0; h<heights.length; h++) {
+				r[h][c] = byColumn.get(c)[h];
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Computes the kernel values of a graph not contained in the state and
+	 * the graphs added so far. The state is not modified and concurrent 
+	 * calls are allowed.
+	 * @param query the histograms of the graph obtained from the dictionary
+	 * of this state for at least the maximum of the heights iterations, see 
+	 * {@link WeisfeilerLehmanColorDictionary#getFeatureVectorsByIteration(LGraph, int, WeisfeilerLehmanColorDictionary.Unseen)}
+	 * @param heights the heights
+	 * @param assignment true for the optimal assignment kernel, false for
+	 * the subtree kernel
+	 * @return r[h] contains the kernel values for height heights[h]
+	 */
+	public double[][] computeRow(CompressedFeatureVector[] query, int[] heights, boolean assignment) {
+		int maxHeight = 0;
+		for (int h : heights) {
+			if (h < 0 || h > getHeight() || h >= query.length) {
+				throw new IllegalArgumentException("Height "+h+" exceeds the height of the state or the query.");
+			}
+			maxHeight = Math.max(maxHeight, h);
+		}
+		return compute(query, size(), maxHeight, heights, assignment);
+	}
+
+	/**
+	 * Computes the kernel values of the given histograms and the first
+	 * count graphs.
+	 */
+	private double[][] compute(CompressedFeatureVector[] hi, int count, int maxHeight, int[] heights, boolean assignment) {
+		double[][] c = new double[heights.length][count];
+		for (int j=0; j<count; j++) {
+			CompressedFeatureVector[] hj = histograms.get(j);
+			double sum = 0;
+			for (int l=0; l<=maxHeight; l++) {
+				sum += assignment ? hi[l].histogramIntersection(hj[l]) : hi[l].dotProduct(hj[l]);
+				for (int h=0; h<heights.length; h++) {
+					if (heights[h] == l) c[h][j] = sum;
+				}
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * Creates an inverted index of the merged histograms of the graphs 
+	 * added so far for the given height. The dot products and histogram
+	 * intersections of the index are the values of the subtree kernel and
+	 * the optimal assignment kernel, respectively.
+	 * @param height the height, at most {@link #getHeight()}
+	 * @see #mergeIterations(CompressedFeatureVector[], int)
+	 */
+	public InvertedIndex createIndex(int height) {
+		if (height < 0 || height > getHeight()) {
+			throw new IllegalArgumentException("Height "+height+" exceeds the height of the state.");
+		}
+		return new InvertedIndex(TransformationTools.transformAllParallel(h -> mergeIterations(h, height), histograms));
+	}
+
+	/**
+	 * Merges the histograms of the iterations 0, ..., height into a single
+	 * vector. Negative colors, i.e., colors of unseen labels and signatures
+	 * not contained in the dictionary, are omitted.
+	 * @param histograms the histograms indexed by iteration
+	 * @param height the height
+	 * @return the merged histogram
+	 */
+	public static CompressedFeatureVector mergeIterations(CompressedFeatureVector[] histograms, int height) {
+		int n = 0;
+		for (int l=0; l<=height; l++) {
+			n += histograms[l].size();
+		}
+		long[] entries = new long[n];
+		double[] v = new double[n];
+		int k = 0;
+		for (int l=0; l<=height; l++) {
+			CompressedFeatureVector fv = histograms[l];
+			for (int i=0; i<fv.size(); i++) {
+				if (fv.getFeature(i) < 0) continue;
+				entries[k] = ((long)fv.getFeature(i) << 32) | k;
+				v[k++] = fv.getValue(i);
+			}
+		}
+		Arrays.sort(entries, 0, k);
+		int[] features = new int[k];
+		double[] values = new double[k];
+		for (int i=0; i<k; i++) {
+			features[i] = (int)(entries[i] >>> 32);
+			values[i] = v[(int)entries[i]];
+		}
+		return new CompressedFeatureVector(features, values);
+	}
+
+	/**
+	 * Writes the state to a temporary file in the same directory, which then
+	 * atomically replaces the file.
+	 */
+	public void write(File file) throws IOException {
+		Path tmp = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), file.getName(), ".tmp");
+		try {
+			try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+				oos.writeObject(this);
+			}
+			Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Reads a state written by {@link #write(File)}.
+	 * @throws IOException if the file does not contain a valid state
+	 */
+	public static WeisfeilerLehmanGramState read(File file) throws IOException {
+		try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			return (WeisfeilerLehmanGramState)ois.readObject();
+		} catch (ClassNotFoundException | ClassCastException e) {
+			throw new IOException("Not a valid state file: "+file, e);
+		}
+	}
+
+}
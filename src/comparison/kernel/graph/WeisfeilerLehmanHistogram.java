@@ -0,0 +1,148 @@
+package comparison.kernel.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+
+import concepts.TransformationTools;
+import datastructure.FeatureVector;
+
+/**
+ * Stores the color histograms of a graph for all iterations of the
+ * Weisfeiler-Lehman refinement in sorted primitive arrays. The colors of
+ * iteration i occupy the positions levelStart[i] to levelStart[i+1]-1.
+ *
+ * The colors of iteration i+1 refine the colors of iteration i, i.e., each
+ * color has a unique parent color in the previous iteration and its count
+ * is bounded by the count of the parent. Hence, the histogram intersection
+ * of two graphs restricted to iteration i+1 never exceeds the value for
+ * iteration i and the computation can be stopped at the first iteration
+ * without a common color.
+ *
+ * @see OptimalAssignmentGraphKernel.WeisfeilerLehmanSubtree
+ */
+public class WeisfeilerLehmanHistogram {
+
+	private final int[] colors;
+	private final double[] counts;
+	private final int[] levelStart;
+
+	/**
+	 * Creates the histogram from the feature vectors of the individual
+	 * iterations.
+	 * @param levels the feature vectors of the iterations 0 to h
+	 */
+	public WeisfeilerLehmanHistogram(List<? extends FeatureVector<Integer>> levels) {
+		int size = 0;
+		for (FeatureVector<Integer> fv : levels) {
+			size += fv.size();
+		}
+		colors = new int[size];
+		counts = new double[size];
+		levelStart = new int[levels.size()+1];
+		int k = 0;
+		for (int l=0; l<levels.size(); l++) {
+			levelStart[l] = k;
+			FeatureVector<Integer> fv = levels.get(l);
+			long[] colorPos = new long[fv.size()];
+			double[] v = new double[fv.size()];
+			int p = 0;
+			for (Entry<Integer, Double> e : fv.nonZeroEntries()) {
+				colorPos[p] = ((long)e.getKey() << 32) | p;
+				v[p] = e.getValue();
+				p++;
+			}
+			Arrays.sort(colorPos);
+			for (long cp : colorPos) {
+				colors[k] = (int)(cp >>> 32);
+				counts[k] = v[(int)cp];
+				k++;
+			}
+		}
+		levelStart[levels.size()] = k;
+	}
+
+	/**
+	 * Creates the histograms for a set of graphs in parallel.
+	 * @param byIteration the feature vectors indexed by iteration and graph
+	 * @return a histogram for each graph
+	 * @see WeisfeilerLehmanKernel#getFeatureVectorsByIteration(List)
+	 */
+	public static ArrayList<WeisfeilerLehmanHistogram> createAll(List<? extends List<? extends FeatureVector<Integer>>> byIteration) {
+		int n = byIteration.get(0).size();
+		ArrayList<Integer> indices = new ArrayList<>(n);
+		for (int j=0; j<n; j++) {
+			indices.add(j);
+		}
+		return TransformationTools.transformAllParallel(j -> {
+			ArrayList<FeatureVector<Integer>> levels = new ArrayList<>(byIteration.size());
+			for (List<? extends FeatureVector<Integer>> it : byIteration) {
+				levels.add(it.get(j));
+			}
+			return new WeisfeilerLehmanHistogram(levels);
+		}, indices);
+	}
+
+	/**
+	 * @return the number of iterations stored
+	 */
+	public int getLevelCount() {
+		return levelStart.length-1;
+	}
+
+	/**
+	 * Computes the histogram intersection of a single iteration.
+	 * @param h the other histogram
+	 * @param level the iteration
+	 * @return the sum of the minimum counts of the common colors
+	 */
+	public double intersection(WeisfeilerLehmanHistogram h, int level) {
+		int i = this.levelStart[level], iEnd = this.levelStart[level+1];
+		int j = h.levelStart[level], jEnd = h.levelStart[level+1];
+		int[] c1 = this.colors, c2 = h.colors;
+		double r = 0;
+		while (i < iEnd && j < jEnd) {
+			if (c1[i] < c2[j]) {
+				i++;
+			} else if (c1[i] > c2[j]) {
+				j++;
+			} else {
+				r += Math.min(this.counts[i++], h.counts[j++]);
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Computes the histogram intersection for each iteration separately. The
+	 * computation stops at the first iteration without common colors, the
+	 * values for all further iterations are zero.
+	 * @param h the other histogram
+	 * @return the intersection for each iteration
+	 */
+	public double[] levelIntersections(WeisfeilerLehmanHistogram h) {
+		double[] r = new double[getLevelCount()];
+		for (int l=0; l<r.length; l++) {
+			r[l] = intersection(h, l);
+			if (r[l] == 0) break;
+		}
+		return r;
+	}
+
+	/**
+	 * Computes the histogram intersection over all iterations.
+	 * @param h the other histogram
+	 * @return the sum of the intersections of all iterations
+	 */
+	public double intersection(WeisfeilerLehmanHistogram h) {
+		double r = 0;
+		for (int l=0; l<getLevelCount(); l++) {
+			double d = intersection(h, l);
+			if (d == 0) break;
+			r += d;
+		}
+		return r;
+	}
+
+}
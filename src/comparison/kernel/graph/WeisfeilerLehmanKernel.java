@@ -4,13 +4,22 @@ import java.util.ArrayList;
 import java.util.List;
 
 import algorithm.graph.isomorphism.labelrefinement.VertexLabelConverter;
-import algorithm.graph.isomorphism.labelrefinement.WeisfeilerLehmanRefiner;
+import algorithm.graph.isomorphism.labelrefinement.WeisfeilerLehmanColorDictionary;
+import algorithm.graph.isomorphism.labelrefinement.WeisfeilerLehmanColorDictionary.Unseen;
+import algorithm.graph.isomorphism.labelrefinement.WeisfeilerLehmanIntRefiner;
+import comparison.GramComputation;
+import comparison.GramComputation.GramConsumer;
 import comparison.kernel.CompositeKernel;
 import comparison.kernel.ExplicitMappingKernel;
 import comparison.kernel.Kernel;
 import concepts.TransformationTools;
+import datastructure.CSRMatrix;
+import datastructure.CompressedFeatureVector;
+import datastructure.FeatureDictionary;
 import datastructure.FeatureVector;
+import graph.Graph;
 import graph.LGraph;
+import graph.properties.IntVertexArray;
 
 /**
  * Implementation of Weisfeiler-Lehman graph kernels depending on an arbitrary
@@ -20,7 +29,8 @@ import graph.LGraph;
  * kernel, where 0 <= i <= sequenceSize.
  * This class supports 1:1 kernel computation as well as explicit mapping into 
  * feature space for fast n:n computation if the base kernel supports explicit
- * mapping.
+ * mapping. Feature vectors of single graphs, e.g., new graphs compared to a
+ * training set, are computed using a {@link WeisfeilerLehmanColorDictionary}.
  * 
  * @see WeisfeilerLehmanShortestPathKernel
  * 
@@ -37,6 +47,8 @@ public class WeisfeilerLehmanKernel<V,E,F>	implements
 
 	protected int height;
 	protected Kernel<LGraph<Integer, E>> baseKernel;
+	protected WeisfeilerLehmanColorDictionary dictionary;
+	protected Unseen unseen;
 	
 	/**
 	 * Creates a new instance of a Weisfeiler-Lehmann kernel.
@@ -48,6 +60,8 @@ public class WeisfeilerLehmanKernel<V,E,F>	implements
 	public WeisfeilerLehmanKernel(int height, Kernel<LGraph<Integer, E>> baseKernel) {
 		this.height = height;
 		this.baseKernel = baseKernel;
+		this.dictionary = new WeisfeilerLehmanColorDictionary(height);
+		this.unseen = Unseen.ADD;
 	}
 	
 	/**
@@ -66,21 +80,77 @@ public class WeisfeilerLehmanKernel<V,E,F>	implements
 		d[0] = baseKernel.compute(slg1, slg2);
 
 		// additional iterations
-		WeisfeilerLehmanRefiner<E> wlr = new WeisfeilerLehmanRefiner<E>();
+		WeisfeilerLehmanIntRefiner<E> wlr = new WeisfeilerLehmanIntRefiner<E>(vlc.getNextLabel());
 		for (int i=1; i<=height; i++) {
-			slg1 = vlc.refineGraph(wlr.refineGraph(slg1));
-			slg2 = vlc.refineGraph(wlr.refineGraph(slg2));
-			vlc.clearLabelMap();
+			slg1 = wlr.refineGraph(slg1);
+			slg2 = wlr.refineGraph(slg2);
+			wlr.clearLabelMap();
 			d[i] = baseKernel.compute(slg1, slg2);
 		}
 		
 		return d;
 	}
 	
+	/**
+	 * Sets the color dictionary used by {@link #getFeatureVector(LGraph)}. A 
+	 * dictionary built on a training set allows to compute feature vectors of
+	 * new graphs, which are comparable to those of the training set.
+	 * @param dictionary the dictionary, its height must be at least the height 
+	 * of this kernel
+	 * @param unseen the treatment of labels and signatures not contained in 
+	 * the dictionary
+	 */
+	public void setColorDictionary(WeisfeilerLehmanColorDictionary dictionary, Unseen unseen) {
+		if (dictionary.getHeight() < height) {
+			throw new IllegalArgumentException("The height of the dictionary is smaller than the height of the kernel.");
+		}
+		this.dictionary = dictionary;
+		this.unseen = unseen;
+	}
+	
+	public WeisfeilerLehmanColorDictionary getColorDictionary() {
+		return dictionary;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The vertex colors are obtained from the color dictionary, see 
+	 * {@link #setColorDictionary(WeisfeilerLehmanColorDictionary, Unseen)},
+	 * which by default is empty and extended by unseen colors. Feature 
+	 * vectors computed with the same dictionary are comparable, but they are
+	 * not comparable to those obtained by {@link #getFeatureVectors(List)}.
+	 * 
+	 * Note: The base kernel is applied to graphs, where vertices with dropped 
+	 * colors are labeled by {@link WeisfeilerLehmanColorDictionary#DROPPED}.
+	 * 
+	 * @throws IllegalStateException if the underlying base kernel does not allow explicit mapping 
+	 */
+	@SuppressWarnings("unchecked")
 	@Override
-	public FeatureVector<F> getFeatureVector(LGraph<V, E> t) throws IllegalStateException {
-		throw new UnsupportedOperationException("No canonical color map implemented, feature vectors "
-				+ "are generated by multiple calls are incompatible!");
+	public FeatureVector<F> getFeatureVector(LGraph<V, E> lg) throws IllegalStateException {
+		if (!(this.baseKernel instanceof ExplicitMappingKernel)) {
+			throw new UnsupportedMappingException("The base kernel does not allow explicit mapping!");
+		}
+		ExplicitMappingKernel<LGraph<Integer, E>, F> baseKernel = 
+			(ExplicitMappingKernel<LGraph<Integer, E>, F>)this.baseKernel;
+		
+		Graph g = lg.getGraph();
+		int[][] colors = dictionary.getColors(lg, height, unseen);
+		FeatureVector<F> r = null;
+		for (int[] c : colors) {
+			IntVertexArray va = new IntVertexArray(g);
+			for (int i=0; i<c.length; i++) {
+				va.setInt(i, c[i]);
+			}
+			FeatureVector<F> fv = baseKernel.getFeatureVector(new LGraph<Integer, E>(g, va, lg.getEdgeLabel()));
+			if (r == null) {
+				r = fv;
+			} else {
+				r.add(fv);
+			}
+		}
+		return r;
 	}
 	
 	/**
@@ -91,12 +161,40 @@ public class WeisfeilerLehmanKernel<V,E,F>	implements
 	 * 
 	 * @throws IllegalStateException if the underlying base kernel does not allow explicit mapping 
 	 */
-	@SuppressWarnings("unchecked")
 	public ArrayList<FeatureVector<F>> getFeatureVectors(List<? extends LGraph<V, E>> graphs) {
+		ArrayList<ArrayList<FeatureVector<F>>> byIteration = getFeatureVectorsByIteration(graphs);
+		
+		// combine the feature vectors of all iterations
+		ArrayList<FeatureVector<F>> result = byIteration.get(0);
+		for (int i=1; i<=height; i++) {
+			ArrayList<FeatureVector<F>> r2 = byIteration.get(i);
+			for (int j=0; j<graphs.size(); j++) {
+				result.get(j).add(r2.get(j));
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Computes the feature vectors of the base kernel for each graph of the WL sequence
+	 * separately. The i-th list contains the feature vectors of the graphs obtained by
+	 * i refinement steps, where 0 <= i <= height. The labels used in different iterations
+	 * are disjoint.
+	 * 
+	 * Note: The feature vectors generated by two separate calls to this method are incompatible and
+	 * should not be compared in any way.
+	 * 
+	 * @param graphs the graphs
+	 * @return a list of feature vectors for each iteration
+	 * @throws IllegalStateException if the underlying base kernel does not allow explicit mapping 
+	 */
+	@SuppressWarnings("unchecked")
+	public ArrayList<ArrayList<FeatureVector<F>>> getFeatureVectorsByIteration(List<? extends LGraph<V, E>> graphs) {
 		ExplicitMappingKernel<LGraph<Integer, E>, F> baseKernel = 
 			(ExplicitMappingKernel<LGraph<Integer, E>, F>)this.baseKernel;
 		
-		int n = graphs.size();
+		ArrayList<ArrayList<FeatureVector<F>>> result = new ArrayList<>(height+1);
 		VertexLabelConverter<E> vlc = new VertexLabelConverter<E>();
 
 		// assign integer label
@@ -107,26 +205,88 @@ public class WeisfeilerLehmanKernel<V,E,F>	implements
 		vlc.clearLabelMap(); 
 		
 		// create initial feature vectors
-		ArrayList<FeatureVector<F>> result = baseKernel.getFeatureVectors(lgs);
+		result.add(baseKernel.getFeatureVectors(lgs));
 		
-		WeisfeilerLehmanRefiner<E> wlr = new WeisfeilerLehmanRefiner<E>();
+		WeisfeilerLehmanIntRefiner<E> wlr = new WeisfeilerLehmanIntRefiner<E>(vlc.getNextLabel());
 		for (int i=1; i<=height; i++) {
-			// refinement
-			ArrayList<LGraph<String, E>> refLgs = TransformationTools.transformAll(wlr, lgs);
-			// compression
-			lgs = TransformationTools.transformAll(vlc, refLgs);
-			vlc.clearLabelMap();
+			// refinement and compression
+			lgs = wlr.refineAll(lgs);
+			wlr.clearLabelMap();
 			
-			// compute new feature vectors and combine with the old one
-			ArrayList<FeatureVector<F>> r2 = baseKernel.getFeatureVectors(lgs);
-			for (int j=0; j<n; j++) {
-				result.get(j).add(r2.get(j));
-			}
+			// compute new feature vectors
+			result.add(baseKernel.getFeatureVectors(lgs));
 		}
 		
 		return result;
 	}
 	
+	/**
+	 * Computes the gram matrices for the given heights by explicit mapping
+	 * based on a single sequence of refinements. The gram matrix for height i
+	 * is the sum of the gram matrices of the base kernel for the iterations 0
+	 * to i, which are added to a single matrix. The consumer is called with
+	 * this matrix as soon as a requested height is reached.
+	 * 
+	 * @param set the graphs
+	 * @param heights the requested heights in ascending order, at most the
+	 * height of this kernel
+	 * @param c receives each requested height and its gram matrix
+	 * @throws IllegalStateException if the underlying base kernel does not allow explicit mapping 
+	 */
+	public void computeExplicitByHeight(List<? extends LGraph<V, E>> set, int[] heights, GramConsumer c) {
+		checkHeights(heights);
+		ArrayList<ArrayList<FeatureVector<F>>> byIteration = getFeatureVectorsByIteration(set);
+		double[][] r = new double[set.size()][set.size()];
+		int next = 0;
+		for (int i=0; i<=heights[heights.length-1]; i++) {
+			FeatureDictionary<F> dict = new FeatureDictionary<F>();
+			ArrayList<CompressedFeatureVector> cfvs = CompressedFeatureVector.compressAll(byIteration.get(i), dict);
+			byIteration.set(i, null);
+			CSRMatrix.fromVectors(cfvs, dict.size()).multiplyTransposed(r);
+			if (heights[next] == i) {
+				c.accept(i, r);
+				next++;
+			}
+		}
+	}
+	
+	/**
+	 * Computes the gram matrices for the given heights by pairwise
+	 * comparison, where each pair is refined once. One matrix is held for
+	 * each requested height, the consumer is called after all pairs have
+	 * been compared.
+	 * 
+	 * @param set the graphs
+	 * @param heights the requested heights in ascending order, at most the
+	 * height of this kernel
+	 * @param c receives each requested height and its gram matrix
+	 * @see #computeComposition(LGraph, LGraph)
+	 */
+	public void computeByHeight(List<? extends LGraph<V, E>> set, int[] heights, GramConsumer c) {
+		checkHeights(heights);
+		double[][][] r = GramComputation.computeSymmetricPrefixSums(set.size(), 
+				(i, j) -> computeComposition(set.get(i), set.get(j)), heights);
+		for (int i=0; i<heights.length; i++) {
+			c.accept(heights[i], r[i]);
+			r[i] = null;
+		}
+	}
+	
+	/**
+	 * @throws IllegalArgumentException if the heights are not strictly
+	 * ascending or not in the range of this kernel
+	 */
+	void checkHeights(int[] heights) {
+		if (heights.length == 0 || heights[0] < 0 || heights[heights.length-1] > height) {
+			throw new IllegalArgumentException("The heights must be in the range 0 to "+height+".");
+		}
+		for (int i=1; i<heights.length; i++) {
+			if (heights[i] <= heights[i-1]) {
+				throw new IllegalArgumentException("The heights must be strictly ascending.");
+			}
+		}
+	}
+	
 	public int getHeight() {
 		return height;
 	}
@@ -1,6 +1,10 @@
 package comparison.kernel.graph;
 
 import comparison.kernel.basic.DiracKernel;
+import datastructure.CompressedFeatureVector;
+import datastructure.FeatureVector;
+import datastructure.SparseFeatureVector;
+import graph.LGraph;
 
 /**
  * Weisfeiler Lehman Subtree Kernel (Shervashidze, 2011) supporting 1:1 kernel 
@@ -21,6 +25,23 @@ public class WeisfeilerLehmanSubtreeKernel<V, E> extends WeisfeilerLehmanKernel<
 		super(height, new VertexKernel<Integer, E>(new DiracKernel()));
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The features are the vertex colors, vertices with dropped colors are
+	 * ignored.
+	 */
+	@Override
+	public FeatureVector<Integer> getFeatureVector(LGraph<V, E> lg) {
+		SparseFeatureVector<Integer> r = new SparseFeatureVector<>();
+		for (CompressedFeatureVector cfv : dictionary.getFeatureVectorsByIteration(lg, height, unseen)) {
+			for (int i=0; i<cfv.size(); i++) {
+				r.increase(cfv.getFeature(i), cfv.getValue(i));
+			}
+		}
+		return r;
+	}
+	
 	@Override
 	public String toString() {
 		return "Weisfeiler-Lehman subtree kernel:\n"+super.toString();
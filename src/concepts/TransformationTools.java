@@ -2,6 +2,12 @@ package concepts;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import util.concurrent.ParallelTools;
 
 
 /**
@@ -27,4 +33,73 @@ public class TransformationTools {
 		}
 		return transformedSet;
 	}
+	
+	/**
+	 * Transforms the objects in the given set by the specified transformation
+	 * using the shared thread pool, see {@link ParallelTools}. The order of 
+	 * the list is preserved.
+	 * 
+	 * Note: The transformation must allow concurrent calls.
+	 * 
+	 * @see #transformAll(Transformation, List, ExecutorService)
+	 */
+	public static <I,O> ArrayList<O> transformAllParallel(Transformation<? super I,O> trans, List<I> list) {
+		if (ParallelTools.isParallel()) {
+			return transformAll(trans, list, ParallelTools.getPool());
+		} else {
+			return transformAll(trans, list);
+		}
+	}
+	
+	/**
+	 * Transforms the objects in the given set by the specified transformation,
+	 * where consecutive chunks of the list are processed by the given executor.
+	 * The order of the list is preserved.
+	 * 
+	 * Note: The transformation must allow concurrent calls.
+	 * 
+	 * @param <I> input object type
+	 * @param <O> output object type
+	 * @param trans
+	 * @param list
+	 * @param executor the executor running the transformation
+	 * @return the transformed objects
+	 */
+	@SuppressWarnings("unchecked")
+	public static <I,O> ArrayList<O> transformAll(Transformation<? super I,O> trans, List<I> list, ExecutorService executor) {
+		int n = list.size();
+		Object[] transformed = new Object[n];
+		int chunkSize = Math.max(1, n / (8 * ParallelTools.getThreadCount()));
+		ArrayList<Callable<Void>> tasks = new ArrayList<>();
+		for (int start=0; start<n; start+=chunkSize) {
+			final int from = start;
+			final int to = Math.min(n, start + chunkSize);
+			tasks.add(() -> {
+				for (int i=from; i<to; i++) {
+					transformed[i] = trans.transform(list.get(i));
+				}
+				return null;
+			});
+		}
+		
+		try {
+			for (Future<Void> f : executor.invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while transforming objects.", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+			if (cause instanceof Error) throw (Error)cause;
+			throw new IllegalStateException(cause);
+		}
+		
+		ArrayList<O> transformedSet = new ArrayList<O>(n);
+		for (Object o : transformed) {
+			transformedSet.add((O)o);
+		}
+		return transformedSet;
+	}
 }
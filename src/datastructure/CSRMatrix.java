@@ -0,0 +1,183 @@
+package datastructure;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import util.concurrent.ParallelTools;
+
+/**
+ * Immutable sparse matrix in compressed sparse row (CSR) format. The
+ * column indices of each row are stored in ascending order.
+ */
+public class CSRMatrix {
+
+	/**
+	 * Number of rows processed by a single task when computing X*X^T.
+	 */
+	public static final int ROW_BLOCK_SIZE = 16;
+
+	private final int rows;
+	private final int columns;
+	private final int[] rowStart;
+	private final int[] columnIndex;
+	private final double[] values;
+
+	/**
+	 * Creates a matrix from its CSR representation. Note: The arrays are
+	 * not copied.
+	 * @param rows number of rows
+	 * @param columns number of columns
+	 * @param rowStart the entries of row i are stored at positions
+	 * rowStart[i] to rowStart[i+1]-1, the array has length rows+1
+	 * @param columnIndex the column indices, ascending within each row
+	 * @param values the values
+	 */
+	public CSRMatrix(int rows, int columns, int[] rowStart, int[] columnIndex, double[] values) {
+		this.rows = rows;
+		this.columns = columns;
+		this.rowStart = rowStart;
+		this.columnIndex = columnIndex;
+		this.values = values;
+	}
+
+	/**
+	 * Stacks the feature vectors, such that the i-th row of the matrix is
+	 * the i-th vector.
+	 * @param fvs the feature vectors
+	 * @param columns the number of columns, must exceed all feature ids
+	 * @return the feature matrix
+	 */
+	public static CSRMatrix fromVectors(List<CompressedFeatureVector> fvs, int columns) {
+		int n = fvs.size();
+		int[] rowStart = new int[n+1];
+		for (int i=0; i<n; i++) {
+			rowStart[i+1] = rowStart[i] + fvs.get(i).size();
+		}
+		int[] columnIndex = new int[rowStart[n]];
+		double[] values = new double[rowStart[n]];
+		for (int i=0; i<n; i++) {
+			CompressedFeatureVector fv = fvs.get(i);
+			int offset = rowStart[i];
+			for (int k=0; k<fv.size(); k++) {
+				columnIndex[offset+k] = fv.getFeature(k);
+				values[offset+k] = fv.getValue(k);
+			}
+		}
+		return new CSRMatrix(n, columns, rowStart, columnIndex, values);
+	}
+
+	public int getRowDimension() {
+		return rows;
+	}
+
+	public int getColumnDimension() {
+		return columns;
+	}
+
+	/**
+	 * @return the number of stored entries
+	 */
+	public int getNonZeroCount() {
+		return rowStart[rows];
+	}
+
+	/**
+	 * Computes the transposed matrix by counting sort; the column indices of
+	 * the result are in ascending order.
+	 * @return the transposed matrix
+	 */
+	public CSRMatrix transpose() {
+		int nnz = getNonZeroCount();
+		int[] tRowStart = new int[columns+1];
+		for (int k=0; k<nnz; k++) {
+			tRowStart[columnIndex[k]+1]++;
+		}
+		for (int c=0; c<columns; c++) {
+			tRowStart[c+1] += tRowStart[c];
+		}
+		int[] next = new int[columns];
+		System.arraycopy(tRowStart, 0, next, 0, columns);
+		int[] tColumnIndex = new int[nnz];
+		double[] tValues = new double[nnz];
+		for (int r=0; r<rows; r++) {
+			for (int k=rowStart[r]; k<rowStart[r+1]; k++) {
+				int pos = next[columnIndex[k]]++;
+				tColumnIndex[pos] = r;
+				tValues[pos] = values[k];
+			}
+		}
+		return new CSRMatrix(columns, rows, tRowStart, tColumnIndex, tValues);
+	}
+
+	/**
+	 * Computes the symmetric matrix X*X^T, where X is this matrix, i.e., the
+	 * dot products of all pairs of rows. The rows of the result are computed
+	 * in blocks on the shared thread pool, see {@link ParallelTools}. For each
+	 * entry the products are summed up in ascending column order.
+	 * @return the dense result matrix
+	 */
+	public double[][] multiplyTransposed() {
+		double[][] r = new double[rows][rows];
+		multiplyTransposed(r);
+		return r;
+	}
+
+	/**
+	 * Adds the symmetric matrix X*X^T to the given matrix, which must be
+	 * symmetric, see {@link #multiplyTransposed()}.
+	 * @param r dense matrix with the number of rows of this matrix as
+	 * dimension
+	 */
+	public void multiplyTransposed(double[][] r) {
+		CSRMatrix t = transpose();
+		ParallelTools.invoke(new RowBlockTask(t, r, 0, rows));
+	}
+
+	/**
+	 * Adds the rows [lo, hi) of X*X^T to r by accumulating, for each entry of
+	 * row i, the products with all rows j >= i sharing the column.
+	 */
+	private class RowBlockTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		final CSRMatrix t;
+		final double[][] r;
+		final int lo, hi;
+
+		public RowBlockTask(CSRMatrix t, double[][] r, int lo, int hi) {
+			this.t = t;
+			this.r = r;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > ROW_BLOCK_SIZE) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new RowBlockTask(t, r, lo, mid), new RowBlockTask(t, r, mid, hi));
+				return;
+			}
+			for (int i=lo; i<hi; i++) {
+				double[] ri = r[i];
+				for (int k=rowStart[i]; k<rowStart[i+1]; k++) {
+					int c = columnIndex[k];
+					double x = values[k];
+					int end = t.rowStart[c+1];
+					// skip rows j < i
+					int p = Arrays.binarySearch(t.columnIndex, t.rowStart[c], end, i);
+					if (p < 0) p = -p-1;
+					for (; p<end; p++) {
+						ri[t.columnIndex[p]] += x * t.values[p];
+					}
+				}
+				for (int j=i+1; j<rows; j++) {
+					r[j][i] = ri[j];
+				}
+			}
+		}
+	}
+
+}
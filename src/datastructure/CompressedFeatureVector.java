@@ -0,0 +1,170 @@
+package datastructure;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+
+import concepts.TransformationTools;
+
+/**
+ * Immutable sparse feature vector storing the ids of the non-zero features
+ * in ascending order together with their values in primitive arrays.
+ * Feature ids are obtained from a {@link FeatureDictionary}; vectors are
+ * only comparable if they have been created using the same dictionary.
+ *
+ * Dot product and histogram intersection are computed by merging the two
+ * sorted arrays in linear time.
+ */
+public class CompressedFeatureVector implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int[] features;
+	private final double[] values;
+
+	/**
+	 * Creates a vector from sorted feature ids and the associated values.
+	 * Note: The arrays are not copied.
+	 * @param features feature ids in ascending order
+	 * @param values the values
+	 */
+	public CompressedFeatureVector(int[] features, double[] values) {
+		this.features = features;
+		this.values = values;
+	}
+
+	/**
+	 * Creates a compressed copy of the given vector, where ids for unseen
+	 * features are added to the dictionary.
+	 * @param fv the feature vector
+	 * @param dict the dictionary
+	 */
+	public <T> CompressedFeatureVector(FeatureVector<T> fv, FeatureDictionary<T> dict) {
+		int n = fv.size();
+		long[] idPos = new long[n];
+		double[] v = new double[n];
+		int k = 0;
+		for (Entry<T, Double> e : fv.nonZeroEntries()) {
+			idPos[k] = ((long)dict.getId(e.getKey()) << 32) | k;
+			v[k] = e.getValue();
+			k++;
+		}
+		Arrays.sort(idPos, 0, k);
+		features = new int[k];
+		values = new double[k];
+		for (int i=0; i<k; i++) {
+			features[i] = (int)(idPos[i] >>> 32);
+			values[i] = v[(int)idPos[i]];
+		}
+	}
+
+	/**
+	 * @return the number of stored features
+	 */
+	public int size() {
+		return features.length;
+	}
+
+	/**
+	 * @return the id of the i-th stored feature
+	 */
+	public int getFeature(int i) {
+		return features[i];
+	}
+
+	/**
+	 * @return the value of the i-th stored feature
+	 */
+	public double getValue(int i) {
+		return values[i];
+	}
+
+	/**
+	 * Returns the value of the feature with the given id by binary search.
+	 */
+	public double getValueById(int feature) {
+		int i = Arrays.binarySearch(features, feature);
+		return i < 0 ? 0d : values[i];
+	}
+
+	public double dotProduct(CompressedFeatureVector v) {
+		int[] f1 = this.features, f2 = v.features;
+		double[] v1 = this.values, v2 = v.values;
+		int i = 0, j = 0;
+		double r = 0;
+		while (i < f1.length && j < f2.length) {
+			if (f1[i] < f2[j]) {
+				i++;
+			} else if (f1[i] > f2[j]) {
+				j++;
+			} else {
+				r += v1[i++] * v2[j++];
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Computes the sum of the minima of the values of all features.
+	 */
+	public double histogramIntersection(CompressedFeatureVector v) {
+		int[] f1 = this.features, f2 = v.features;
+		double[] v1 = this.values, v2 = v.values;
+		int i = 0, j = 0;
+		double r = 0;
+		while (i < f1.length && j < f2.length) {
+			if (f1[i] < f2[j]) {
+				i++;
+			} else if (f1[i] > f2[j]) {
+				j++;
+			} else {
+				r += Math.min(v1[i++], v2[j++]);
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Compresses all feature vectors using a common dictionary. Ids are
+	 * assigned in the order in which features occur in the list, the
+	 * vectors are then created in parallel.
+	 * @param fvs the feature vectors
+	 * @param dict the dictionary, ids for unseen features are added
+	 * @return the compressed feature vectors in the order of the list
+	 */
+	public static <T> ArrayList<CompressedFeatureVector> compressAll(List<? extends FeatureVector<T>> fvs, FeatureDictionary<T> dict) {
+		for (FeatureVector<T> fv : fvs) {
+			for (T f : fv.nonZeroFeatures()) {
+				dict.getId(f);
+			}
+		}
+		return TransformationTools.transformAllParallel(fv -> new CompressedFeatureVector(fv, dict), fvs);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof CompressedFeatureVector)) return false;
+		CompressedFeatureVector other = (CompressedFeatureVector)obj;
+		return Arrays.equals(features, other.features) && Arrays.equals(values, other.values);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31*Arrays.hashCode(features)+Arrays.hashCode(values);
+	}
+
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		sb.append('{');
+		for (int i=0; i<features.length; i++) {
+			if (i != 0) sb.append(", ");
+			sb.append(features[i]);
+			sb.append('=');
+			sb.append(values[i]);
+		}
+		sb.append('}');
+		return sb.toString();
+	}
+}
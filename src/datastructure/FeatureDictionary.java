@@ -0,0 +1,63 @@
+package datastructure;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns consecutive integer ids to features, starting with 0. The
+ * same feature is always mapped to the same id. Features are identified
+ * by their equals() and hashCode() methods.
+ *
+ * This class is thread-safe.
+ *
+ * @param <T> feature type
+ */
+public class FeatureDictionary<T> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ConcurrentHashMap<T, Integer> ids;
+
+	public FeatureDictionary() {
+		ids = new ConcurrentHashMap<T, Integer>();
+	}
+
+	/**
+	 * Returns the id of the feature; a new id is assigned if the feature
+	 * has not been seen before.
+	 * @param feature the feature
+	 * @return the id of the feature
+	 */
+	public int getId(T feature) {
+		Integer id = ids.get(feature);
+		if (id == null) {
+			synchronized (this) {
+				id = ids.get(feature);
+				if (id == null) {
+					id = ids.size();
+					ids.put(feature, id);
+				}
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the id of the feature without assigning a new id.
+	 * @param feature the feature
+	 * @return the id of the feature or -1 if it has not been seen before
+	 */
+	public int getExistingId(T feature) {
+		Integer id = ids.get(feature);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the number of features, i.e., the id assigned to the next
+	 * unseen feature.
+	 */
+	public int size() {
+		return ids.size();
+	}
+
+}
@@ -0,0 +1,80 @@
+package datastructure;
+
+import java.util.Arrays;
+
+/**
+ * Dense matrix of int values stored row by row in a single array. The
+ * methods of {@link Matrix} box the values, use {@link #getInt(int, int)}
+ * and {@link #setInt(int, int, int)} to avoid this.
+ */
+public class IntMatrix extends AbstractMatrix<Integer> {
+
+	private final int rows;
+	private final int columns;
+	private final int[] data;
+
+	/**
+	 * @param m number of rows
+	 * @param n number of columns
+	 */
+	public IntMatrix(int m, int n) {
+		this.rows = m;
+		this.columns = n;
+		this.data = new int[m*n];
+	}
+
+	/**
+	 * Copy constructor.
+	 */
+	public IntMatrix(IntMatrix a) {
+		this.rows = a.rows;
+		this.columns = a.columns;
+		this.data = a.data.clone();
+	}
+
+	public int getInt(int i, int j) {
+		return data[i*columns+j];
+	}
+
+	public void setInt(int i, int j, int value) {
+		data[i*columns+j] = value;
+	}
+
+	@Override
+	public Integer get(int i, int j) {
+		return data[i*columns+j];
+	}
+
+	@Override
+	public void set(int i, int j, Integer value) {
+		data[i*columns+j] = value;
+	}
+
+	@Override
+	public void fill(Integer value) {
+		fill(value.intValue());
+	}
+
+	public void fill(int value) {
+		Arrays.fill(data, value);
+	}
+
+	/**
+	 * Returns the backing array, the element (i,j) is stored at position
+	 * i*getColumnDimension()+j. Note: The array is not copied.
+	 */
+	public int[] getData() {
+		return data;
+	}
+
+	@Override
+	public int getRowDimension() {
+		return rows;
+	}
+
+	@Override
+	public int getColumnDimension() {
+		return columns;
+	}
+
+}
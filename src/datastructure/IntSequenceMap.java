@@ -0,0 +1,151 @@
+package datastructure;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Assigns consecutive integer ids to sequences of integers, starting with
+ * 0. The sequences are copied into a single growing array and looked up
+ * by open addressing with linear probing, hence no objects are allocated
+ * per sequence.
+ *
+ * This class is not thread-safe.
+ */
+public class IntSequenceMap implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int EMPTY = -1;
+
+	// concatenated sequences, the sequence with id i is stored at
+	// positions start[i] to start[i+1]-1
+	private int[] data;
+	private int[] start;
+	private int[] hashes;
+	private int size;
+
+	// hash table of ids
+	private int[] table;
+	private int mask;
+
+	public IntSequenceMap() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize the expected number of sequences
+	 */
+	public IntSequenceMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) * 2;
+		table = new int[capacity];
+		Arrays.fill(table, EMPTY);
+		mask = capacity - 1;
+		start = new int[Math.max(1, expectedSize)+1];
+		hashes = new int[Math.max(1, expectedSize)];
+		data = new int[4 * hashes.length];
+	}
+
+	/**
+	 * Returns the id of the sequence a[from], ..., a[to-1]; a new id is
+	 * assigned if the sequence has not been seen before.
+	 * @param a the array containing the sequence
+	 * @param from first position (inclusive)
+	 * @param to last position (exclusive)
+	 * @return the id of the sequence
+	 */
+	public int getId(int[] a, int from, int to) {
+		int h = hash(a, from, to);
+		int p = h & mask;
+		for (int id; (id = table[p]) != EMPTY; p = (p + 1) & mask) {
+			if (hashes[id] == h && equals(id, a, from, to)) {
+				return id;
+			}
+		}
+		int id = add(a, from, to, h);
+		table[p] = id;
+		if (2 * size > table.length) rehash();
+		return id;
+	}
+
+	/**
+	 * Returns the id of the sequence a[from], ..., a[to-1] without
+	 * assigning a new id. Concurrent calls of this method are safe as long 
+	 * as no thread calls {@link #getId(int[], int, int)}.
+	 * @return the id of the sequence or -1 if it has not been seen before
+	 */
+	public int getExistingId(int[] a, int from, int to) {
+		int h = hash(a, from, to);
+		int p = h & mask;
+		for (int id; (id = table[p]) != EMPTY; p = (p + 1) & mask) {
+			if (hashes[id] == h && equals(id, a, from, to)) {
+				return id;
+			}
+		}
+		return EMPTY;
+	}
+
+	/**
+	 * Returns the number of sequences, i.e., the id assigned to the next
+	 * unseen sequence.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all sequences, the next unseen sequence is assigned id 0.
+	 */
+	public void clear() {
+		Arrays.fill(table, EMPTY);
+		size = 0;
+	}
+
+	private int add(int[] a, int from, int to, int h) {
+		if (size == hashes.length) {
+			hashes = Arrays.copyOf(hashes, 2 * size);
+			start = Arrays.copyOf(start, 2 * size + 1);
+		}
+		int len = to - from;
+		int offset = start[size];
+		if (offset + len > data.length) {
+			data = Arrays.copyOf(data, Math.max(2 * data.length, offset + len));
+		}
+		System.arraycopy(a, from, data, offset, len);
+		hashes[size] = h;
+		start[size+1] = offset + len;
+		return size++;
+	}
+
+	private boolean equals(int id, int[] a, int from, int to) {
+		int s = start[id];
+		if (start[id+1] - s != to - from) return false;
+		for (int i=from; i<to; i++, s++) {
+			if (data[s] != a[i]) return false;
+		}
+		return true;
+	}
+
+	private void rehash() {
+		table = new int[2 * table.length];
+		Arrays.fill(table, EMPTY);
+		mask = table.length - 1;
+		for (int id=0; id<size; id++) {
+			int p = hashes[id] & mask;
+			while (table[p] != EMPTY) {
+				p = (p + 1) & mask;
+			}
+			table[p] = id;
+		}
+	}
+
+	private static int hash(int[] a, int from, int to) {
+		int h = to - from;
+		for (int i=from; i<to; i++) {
+			h = 31 * h + a[i];
+		}
+		// spread bits, since the table index is taken from the low bits
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+}
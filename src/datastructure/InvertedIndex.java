@@ -0,0 +1,255 @@
+package datastructure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Inverted index of a list of {@link CompressedFeatureVector}s, which maps
+ * each feature id to the posting list of the vectors containing it together
+ * with the values of the feature. Allows to find the vectors with the
+ * largest dot product or histogram intersection with a query vector
+ * without comparing the query to all vectors.
+ *
+ * Top-k queries are answered in the style of the MaxScore algorithm: The
+ * contribution of each query feature is bounded by the maximum value in
+ * its posting list. Once k vectors have been found, the features whose
+ * bounds sum up to at most the k-th best score can not make a vector
+ * enter the result on their own; their posting lists are only probed for
+ * vectors found in the remaining lists and evaluation of a vector stops
+ * as soon as its score plus the bounds of the unprobed features does not
+ * exceed the k-th best score. Feature ids must be non-negative, query
+ * features not contained in the index are ignored. The values are assumed
+ * to be positive.
+ *
+ * This class is immutable and thread-safe.
+ */
+public class InvertedIndex {
+
+	private final int size;
+	// posting lists in CSR form, the vectors of a list are in ascending order
+	private final int[] start;
+	private final int[] vectors;
+	private final double[] values;
+	private final double[] maxValue;
+
+	/**
+	 * Result of a top-k query.
+	 */
+	public static class SearchResult {
+		/**
+		 * The indices of the vectors ordered by descending score, where
+		 * ties are broken in favor of the smaller index.
+		 */
+		public final int[] indices;
+		public final double[] scores;
+		/**
+		 * The number of vectors whose score has been evaluated (completely
+		 * or until pruned).
+		 */
+		public final int evaluated;
+
+		SearchResult(int[] indices, double[] scores, int evaluated) {
+			this.indices = indices;
+			this.scores = scores;
+			this.evaluated = evaluated;
+		}
+	}
+
+	/**
+	 * Creates the index, the vectors are identified by their position in
+	 * the list.
+	 * @param fvs the vectors with non-negative feature ids
+	 */
+	public InvertedIndex(List<CompressedFeatureVector> fvs) {
+		size = fvs.size();
+		int featureCount = 0;
+		for (CompressedFeatureVector fv : fvs) {
+			if (fv.size() == 0) continue;
+			if (fv.getFeature(0) < 0) {
+				throw new IllegalArgumentException("Feature ids must not be negative.");
+			}
+			featureCount = Math.max(featureCount, fv.getFeature(fv.size()-1)+1);
+		}
+		start = new int[featureCount+1];
+		for (CompressedFeatureVector fv : fvs) {
+			for (int i=0; i<fv.size(); i++) {
+				start[fv.getFeature(i)+1]++;
+			}
+		}
+		for (int f=0; f<featureCount; f++) {
+			start[f+1] += start[f];
+		}
+		vectors = new int[start[featureCount]];
+		values = new double[vectors.length];
+		maxValue = new double[featureCount];
+		int[] next = Arrays.copyOf(start, featureCount);
+		for (int v=0; v<size; v++) {
+			CompressedFeatureVector fv = fvs.get(v);
+			for (int i=0; i<fv.size(); i++) {
+				int f = fv.getFeature(i);
+				int p = next[f]++;
+				vectors[p] = v;
+				values[p] = fv.getValue(i);
+				maxValue[f] = Math.max(maxValue[f], values[p]);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of indexed vectors
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the k vectors with the largest dot product or histogram
+	 * intersection with the query. Vectors with score 0 are only contained
+	 * in the result if less than k vectors have a positive score.
+	 * @param query the query vector
+	 * @param k the number of vectors, at most {@link #size()} are returned
+	 * @param intersection true for the histogram intersection, false for
+	 * the dot product
+	 * @return the result ordered by descending score
+	 */
+	public SearchResult search(CompressedFeatureVector query, int k, boolean intersection) {
+		if (k < 1) {
+			throw new IllegalArgumentException("k must be positive.");
+		}
+		k = Math.min(k, size);
+		if (k == 0) {
+			return new SearchResult(new int[0], new double[0], 0);
+		}
+
+		// query features contained in the index ordered by ascending bound
+		int m = 0;
+		int[] order = new int[query.size()];
+		double[] bound = new double[query.size()];
+		for (int i=0; i<query.size(); i++) {
+			int f = query.getFeature(i);
+			if (f < 0 || f >= maxValue.length || start[f] == start[f+1]) continue;
+			double w = query.getValue(i);
+			bound[m] = intersection ? Math.min(w, maxValue[f]) : w * maxValue[f];
+			order[m] = i;
+			m++;
+		}
+		Integer[] byBound = new Integer[m];
+		for (int i=0; i<m; i++) byBound[i] = i;
+		Arrays.sort(byBound, (i, j) -> Double.compare(bound[i], bound[j]));
+		double[] weight = new double[m];
+		double[] ub = new double[m];
+		// prefix[i] is the sum of the bounds of the terms 0, ..., i
+		double[] prefix = new double[m];
+		int[] pos = new int[m];
+		int[] end = new int[m];
+		for (int t=0; t<m; t++) {
+			int i = order[byBound[t]];
+			int f = query.getFeature(i);
+			weight[t] = query.getValue(i);
+			ub[t] = bound[byBound[t]];
+			prefix[t] = ub[t] + (t == 0 ? 0 : prefix[t-1]);
+			pos[t] = start[f];
+			end[t] = start[f+1];
+		}
+
+		// the worst hit is at the head: smallest score, then largest index
+		PriorityQueue<Hit> heap = new PriorityQueue<>(k, (h1, h2) ->
+			h1.score != h2.score ? Double.compare(h1.score, h2.score) : Integer.compare(h2.index, h1.index));
+		double threshold = 0;
+		// the terms 0, ..., firstEssential-1 can not lead to a hit on their own
+		int firstEssential = 0;
+		int evaluated = 0;
+		while (true) {
+			if (heap.size() == k) {
+				threshold = heap.peek().score;
+				while (firstEssential < m && prefix[firstEssential] <= threshold) firstEssential++;
+			}
+			int v = Integer.MAX_VALUE;
+			for (int t=firstEssential; t<m; t++) {
+				if (pos[t] < end[t]) v = Math.min(v, vectors[pos[t]]);
+			}
+			if (v == Integer.MAX_VALUE) break;
+			evaluated++;
+			double score = 0;
+			for (int t=firstEssential; t<m; t++) {
+				if (pos[t] < end[t] && vectors[pos[t]] == v) {
+					score += contribution(weight[t], values[pos[t]], intersection);
+					pos[t]++;
+				}
+			}
+			// probe the remaining terms by descending bound
+			boolean pruned = false;
+			for (int t=firstEssential-1; t>=0; t--) {
+				if (score + prefix[t] <= threshold) {
+					// ties are lost against the hits with smaller index
+					pruned = true;
+					break;
+				}
+				pos[t] = advance(pos[t], end[t], v);
+				if (pos[t] < end[t] && vectors[pos[t]] == v) {
+					score += contribution(weight[t], values[pos[t]], intersection);
+				}
+			}
+			if (pruned) continue;
+			if (heap.size() < k) {
+				heap.add(new Hit(v, score));
+			} else if (score > threshold) {
+				heap.poll();
+				heap.add(new Hit(v, score));
+			}
+		}
+
+		ArrayList<Hit> hits = new ArrayList<>(heap);
+		if (hits.size() < k) {
+			// fill up with vectors of score 0 by ascending index
+			boolean[] contained = new boolean[size];
+			for (Hit h : hits) contained[h.index] = true;
+			for (int v=0; v<size && hits.size()<k; v++) {
+				if (!contained[v]) hits.add(new Hit(v, 0));
+			}
+		}
+		hits.sort((h1, h2) ->
+			h1.score != h2.score ? Double.compare(h2.score, h1.score) : Integer.compare(h1.index, h2.index));
+		int[] indices = new int[hits.size()];
+		double[] scores = new double[hits.size()];
+		for (int i=0; i<indices.length; i++) {
+			indices[i] = hits.get(i).index;
+			scores[i] = hits.get(i).score;
+		}
+		return new SearchResult(indices, scores, evaluated);
+	}
+
+	private static double contribution(double weight, double value, boolean intersection) {
+		return intersection ? Math.min(weight, value) : weight * value;
+	}
+
+	/**
+	 * Returns the first position in [from, to) storing a vector with index
+	 * at least v or to if no such position exists; uses exponential search.
+	 */
+	private int advance(int from, int to, int v) {
+		if (from >= to || vectors[from] >= v) return from;
+		int lo = from, step = 1;
+		// vectors[lo] < v
+		while (lo + step < to && vectors[lo + step] < v) {
+			lo += step;
+			step <<= 1;
+		}
+		int hi = Math.min(to, lo + step);
+		int i = Arrays.binarySearch(vectors, lo+1, hi, v);
+		return i >= 0 ? i : -i-1;
+	}
+
+	private static class Hit {
+		final int index;
+		final double score;
+
+		Hit(int index, double score) {
+			this.index = index;
+			this.score = score;
+		}
+	}
+
+}
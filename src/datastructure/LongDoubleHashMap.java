@@ -0,0 +1,136 @@
+package datastructure;
+
+import java.util.Arrays;
+
+/**
+ * Maps long keys to double values without boxing. Entries are stored in
+ * the order of insertion in two arrays and can be accessed by their
+ * position 0, ..., size()-1; the positions are looked up by open
+ * addressing with linear probing.
+ *
+ * This class is not thread-safe.
+ */
+public class LongDoubleHashMap {
+
+	private static final int EMPTY = -1;
+
+	private long[] keys;
+	private double[] values;
+	private int size;
+
+	// hash table of positions
+	private int[] table;
+	private int mask;
+
+	public LongDoubleHashMap() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize the expected number of keys
+	 */
+	public LongDoubleHashMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) * 2;
+		table = new int[capacity];
+		Arrays.fill(table, EMPTY);
+		mask = capacity - 1;
+		keys = new long[Math.max(1, expectedSize)];
+		values = new double[keys.length];
+	}
+
+	/**
+	 * Adds the value to the value associated with the key, which is 0 if
+	 * the key is not contained.
+	 */
+	public void add(long key, double value) {
+		int i = getPosition(key, true);
+		values[i] += value;
+	}
+
+	/**
+	 * Associates the value with the key.
+	 */
+	public void put(long key, double value) {
+		int i = getPosition(key, true);
+		values[i] = value;
+	}
+
+	/**
+	 * @return the value associated with the key or 0 if the key is not
+	 * contained
+	 */
+	public double get(long key) {
+		int i = getPosition(key, false);
+		return i == EMPTY ? 0d : values[i];
+	}
+
+	public boolean containsKey(long key) {
+		return getPosition(key, false) != EMPTY;
+	}
+
+	/**
+	 * @return the number of keys
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the key at the given position in the order of insertion
+	 */
+	public long getKey(int i) {
+		return keys[i];
+	}
+
+	/**
+	 * @return the value at the given position in the order of insertion
+	 */
+	public double getValue(int i) {
+		return values[i];
+	}
+
+	/**
+	 * Removes all keys.
+	 */
+	public void clear() {
+		Arrays.fill(table, EMPTY);
+		Arrays.fill(values, 0, size, 0d);
+		size = 0;
+	}
+
+	private int getPosition(long key, boolean insert) {
+		int p = hash(key) & mask;
+		for (int i; (i = table[p]) != EMPTY; p = (p + 1) & mask) {
+			if (keys[i] == key) return i;
+		}
+		if (!insert) return EMPTY;
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, 2*size);
+			values = Arrays.copyOf(values, 2*size);
+		}
+		int i = size++;
+		keys[i] = key;
+		table[p] = i;
+		if (2 * size > table.length) rehash();
+		return i;
+	}
+
+	private void rehash() {
+		table = new int[2*table.length];
+		Arrays.fill(table, EMPTY);
+		mask = table.length - 1;
+		for (int i=0; i<size; i++) {
+			int p = hash(keys[i]) & mask;
+			while (table[p] != EMPTY) {
+				p = (p + 1) & mask;
+			}
+			table[p] = i;
+		}
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+
+}
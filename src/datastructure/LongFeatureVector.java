@@ -0,0 +1,187 @@
+package datastructure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import concepts.TransformationTools;
+
+/**
+ * Immutable sparse feature vector with features represented by long keys,
+ * which are stored in ascending order together with their values in
+ * primitive arrays. This allows to represent features composed of several
+ * integer ids, e.g., label triples, without creating objects.
+ *
+ * Dot product and histogram intersection are computed by merging the two
+ * sorted arrays in linear time.
+ *
+ * @see CompressedFeatureVector
+ */
+public class LongFeatureVector {
+
+	private final long[] keys;
+	private final double[] values;
+
+	/**
+	 * Creates a vector from sorted keys and the associated values.
+	 * Note: The arrays are not copied.
+	 * @param keys the keys in ascending order
+	 * @param values the values
+	 */
+	public LongFeatureVector(long[] keys, double[] values) {
+		this.keys = keys;
+		this.values = values;
+	}
+
+	/**
+	 * Creates a vector containing the entries of the map.
+	 * @param map the map
+	 */
+	public LongFeatureVector(LongDoubleHashMap map) {
+		int n = map.size();
+		keys = new long[n];
+		for (int i=0; i<n; i++) {
+			keys[i] = map.getKey(i);
+		}
+		Arrays.sort(keys);
+		values = new double[n];
+		for (int i=0; i<n; i++) {
+			values[i] = map.get(keys[i]);
+		}
+	}
+
+	/**
+	 * @return the number of stored features
+	 */
+	public int size() {
+		return keys.length;
+	}
+
+	/**
+	 * @return the key of the i-th stored feature
+	 */
+	public long getKey(int i) {
+		return keys[i];
+	}
+
+	/**
+	 * @return the value of the i-th stored feature
+	 */
+	public double getValue(int i) {
+		return values[i];
+	}
+
+	public double dotProduct(LongFeatureVector v) {
+		long[] k1 = this.keys, k2 = v.keys;
+		double[] v1 = this.values, v2 = v.values;
+		int i = 0, j = 0;
+		double r = 0;
+		while (i < k1.length && j < k2.length) {
+			if (k1[i] < k2[j]) {
+				i++;
+			} else if (k1[i] > k2[j]) {
+				j++;
+			} else {
+				r += v1[i++] * v2[j++];
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Computes the sum of the minima of the values of all features.
+	 */
+	public double histogramIntersection(LongFeatureVector v) {
+		long[] k1 = this.keys, k2 = v.keys;
+		double[] v1 = this.values, v2 = v.values;
+		int i = 0, j = 0;
+		double r = 0;
+		while (i < k1.length && j < k2.length) {
+			if (k1[i] < k2[j]) {
+				i++;
+			} else if (k1[i] > k2[j]) {
+				j++;
+			} else {
+				r += Math.min(v1[i++], v2[j++]);
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Returns the distinct keys of all vectors in ascending order.
+	 */
+	public static long[] getDistinctKeys(List<LongFeatureVector> fvs) {
+		int n = 0;
+		for (LongFeatureVector fv : fvs) {
+			n += fv.keys.length;
+		}
+		long[] r = new long[n];
+		int k = 0;
+		for (LongFeatureVector fv : fvs) {
+			System.arraycopy(fv.keys, 0, r, k, fv.keys.length);
+			k += fv.keys.length;
+		}
+		Arrays.sort(r);
+		int distinct = 0;
+		for (int i=0; i<n; i++) {
+			if (i == 0 || r[i] != r[i-1]) r[distinct++] = r[i];
+		}
+		return Arrays.copyOf(r, distinct);
+	}
+
+	/**
+	 * Creates a compressed vector, where each key is replaced by its
+	 * position in the given keys. Since the keys are sorted, the order of
+	 * the features is preserved.
+	 * @param dictionary sorted keys containing all keys of this vector
+	 * @see #getDistinctKeys(List)
+	 */
+	public CompressedFeatureVector compress(long[] dictionary) {
+		int[] features = new int[keys.length];
+		int p = 0;
+		for (int i=0; i<keys.length; i++) {
+			p = Arrays.binarySearch(dictionary, p, dictionary.length, keys[i]);
+			features[i] = p;
+		}
+		return new CompressedFeatureVector(features, values.clone());
+	}
+
+	/**
+	 * Compresses all vectors using their common distinct keys, such that
+	 * the i-th smallest key is represented by the id i. The vectors are
+	 * compressed in parallel.
+	 * @param fvs the vectors
+	 * @param dictionary the distinct keys of the vectors
+	 * @return the compressed vectors in the order of the list
+	 * @see #getDistinctKeys(List)
+	 */
+	public static ArrayList<CompressedFeatureVector> compressAll(List<LongFeatureVector> fvs, long[] dictionary) {
+		return TransformationTools.transformAllParallel(fv -> fv.compress(dictionary), fvs);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof LongFeatureVector)) return false;
+		LongFeatureVector other = (LongFeatureVector)obj;
+		return Arrays.equals(keys, other.keys) && Arrays.equals(values, other.values);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31*Arrays.hashCode(keys)+Arrays.hashCode(values);
+	}
+
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		sb.append('{');
+		for (int i=0; i<keys.length; i++) {
+			if (i != 0) sb.append(", ");
+			sb.append(keys[i]);
+			sb.append('=');
+			sb.append(values[i]);
+		}
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -28,10 +28,8 @@ public class SparseFeatureVector<T> implements FeatureVector<T> {
 		}
 	}
 	
-	// TODO it would be more efficient to use a mutable integer!
 	public void increase(T feature, double p) {
-		double i = getValue(feature);
-		setValue(feature, i+p);
+		map.merge(feature, p, Double::sum);
 	}
 	
 	public void increaseByOne(T feature) {
@@ -0,0 +1,334 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import concepts.AbstractAttributedObject;
+import graph.properties.EdgeArray;
+import graph.properties.VertexArray;
+
+/**
+ * Immutable graph stored in compressed sparse row (CSR) format. The
+ * incident edges of each vertex are stored in int arrays sorted by the
+ * index of the opposite vertex, hence {@link #getEdge(Vertex, Vertex)}
+ * takes time O(log deg(u)). Vertex and edge objects are preallocated
+ * flyweights without own adjacency lists.
+ *
+ * In addition to the methods of {@link Graph} the adjacency structure can
+ * be traversed by index without creating any objects:
+ * <pre>
+ * for (int p=g.getAdjacencyStart(v); p&lt;g.getAdjacencyEnd(v); p++) {
+ *     int w = g.getAdjacentVertex(p);
+ *     int e = g.getAdjacentEdge(p);
+ * }
+ * </pre>
+ */
+public class CSRGraph extends AbstractAttributedObject implements Graph {
+
+	private final int[] adjacencyStart;
+	private final int[] adjacentVertex;
+	private final int[] adjacentEdge;
+	private final int[] endpoints;
+
+	private final CSRVertex[] vertices;
+	private final CSREdge[] edges;
+
+	/**
+	 * Creates a graph with the given number of vertices and edges.
+	 * @param n the number of vertices
+	 * @param endpoints the endpoints of the edges, the edge with index i
+	 * connects the vertices endpoints[2i] and endpoints[2i+1]; the array is
+	 * not copied
+	 */
+	public CSRGraph(int n, int[] endpoints) {
+		int m = endpoints.length / 2;
+		this.endpoints = endpoints;
+
+		// count degrees, a self-loop is counted twice
+		adjacencyStart = new int[n+1];
+		for (int i=0; i<endpoints.length; i++) {
+			adjacencyStart[endpoints[i]+1]++;
+		}
+		for (int v=0; v<n; v++) {
+			adjacencyStart[v+1] += adjacencyStart[v];
+		}
+
+		// sort incident edges by opposite vertex and edge index
+		long[] keys = new long[2*m];
+		int[] next = Arrays.copyOf(adjacencyStart, n);
+		for (int e=0; e<m; e++) {
+			int u = endpoints[2*e], v = endpoints[2*e+1];
+			keys[next[u]++] = ((long)v << 32) | e;
+			keys[next[v]++] = ((long)u << 32) | e;
+		}
+		adjacentVertex = new int[2*m];
+		adjacentEdge = new int[2*m];
+		for (int v=0; v<n; v++) {
+			Arrays.sort(keys, adjacencyStart[v], adjacencyStart[v+1]);
+		}
+		for (int p=0; p<2*m; p++) {
+			adjacentVertex[p] = (int)(keys[p] >>> 32);
+			adjacentEdge[p] = (int)keys[p];
+		}
+
+		vertices = new CSRVertex[n];
+		for (int v=0; v<n; v++) {
+			vertices[v] = new CSRVertex(v);
+		}
+		edges = new CSREdge[m];
+		for (int e=0; e<m; e++) {
+			edges[e] = new CSREdge(e);
+		}
+	}
+
+	/**
+	 * Creates a copy of the given graph preserving vertex and edge indices.
+	 * Properties are not copied.
+	 * @param g the graph, vertex and edge indices must be consecutive
+	 * starting with 0
+	 * @return the copy
+	 * @throws IllegalArgumentException if the indices are not consecutive
+	 */
+	public static CSRGraph copyOf(Graph g) {
+		int n = g.getVertexCount();
+		for (Vertex v : g.vertices()) {
+			if (v.getIndex() >= n) {
+				throw new IllegalArgumentException("Vertex indices are not consecutive.");
+			}
+		}
+		int[] endpoints = new int[2*g.getEdgeCount()];
+		for (Edge e : g.edges()) {
+			int i = e.getIndex();
+			if (i >= g.getEdgeCount()) {
+				throw new IllegalArgumentException("Edge indices are not consecutive.");
+			}
+			endpoints[2*i] = e.getFirstVertex().getIndex();
+			endpoints[2*i+1] = e.getSecondVertex().getIndex();
+		}
+		return new CSRGraph(n, endpoints);
+	}
+
+	/**
+	 * Creates a copy of the labeled graph backed by a {@link CSRGraph},
+	 * where the properties of the graph are copied.
+	 * @param lg the labeled graph
+	 * @return the copy
+	 * @see #copyOf(Graph)
+	 */
+	public static <V,E> LGraph<V,E> copyOf(LGraph<V,E> lg) {
+		Graph g = lg.getGraph();
+		CSRGraph csr = copyOf(g);
+		for (String p : g.getProperties()) {
+			csr.setProperty(p, g.getProperty(p));
+		}
+		VertexArray<V> va = new VertexArray<V>(csr);
+		for (Vertex v : g.vertices()) {
+			va.set(csr.getVertex(v.getIndex()), lg.getVertexLabel().get(v));
+		}
+		EdgeArray<E> ea = new EdgeArray<E>(csr);
+		for (Edge e : g.edges()) {
+			ea.set(csr.getEdge(e.getIndex()), lg.getEdgeLabel().get(e));
+		}
+		return new LGraph<V,E>(csr, va, ea);
+	}
+
+	@Override
+	public Iterable<CSRVertex> vertices() {
+		return Arrays.asList(vertices);
+	}
+
+	@Override
+	public Iterable<CSREdge> edges() {
+		return Arrays.asList(edges);
+	}
+
+	@Override
+	public CSRVertex getVertex(int index) {
+		return vertices[index];
+	}
+
+	@Override
+	public CSREdge getEdge(int index) {
+		return edges[index];
+	}
+
+	@Override
+	public int getVertexCount() {
+		return vertices.length;
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edges.length;
+	}
+
+	@Override
+	public boolean hasEdge(Vertex u, Vertex v) {
+		return getEdgeIndex(u.getIndex(), v.getIndex()) != -1;
+	}
+
+	@Override
+	public CSREdge getEdge(Vertex u, Vertex v) {
+		int e = getEdgeIndex(u.getIndex(), v.getIndex());
+		return e == -1 ? null : edges[e];
+	}
+
+	/**
+	 * Returns the index of an edge connecting u and v by binary search in
+	 * the adjacency of u.
+	 * @return the index of the edge with the smallest index or -1 if u and
+	 * v are not adjacent
+	 */
+	public int getEdgeIndex(int u, int v) {
+		int lo = adjacencyStart[u], hi = adjacencyStart[u+1];
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (adjacentVertex[mid] < v) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo < adjacencyStart[u+1] && adjacentVertex[lo] == v ? adjacentEdge[lo] : -1;
+	}
+
+	/**
+	 * @return the position of the first incident edge of vertex v
+	 */
+	public int getAdjacencyStart(int v) {
+		return adjacencyStart[v];
+	}
+
+	/**
+	 * @return the position after the last incident edge of vertex v
+	 */
+	public int getAdjacencyEnd(int v) {
+		return adjacencyStart[v+1];
+	}
+
+	/**
+	 * @return the index of the vertex at the given position of the adjacency
+	 */
+	public int getAdjacentVertex(int p) {
+		return adjacentVertex[p];
+	}
+
+	/**
+	 * @return the index of the edge at the given position of the adjacency
+	 */
+	public int getAdjacentEdge(int p) {
+		return adjacentEdge[p];
+	}
+
+	/**
+	 * @return the index of the first vertex of edge e
+	 */
+	public int getFirstVertexIndex(int e) {
+		return endpoints[2*e];
+	}
+
+	/**
+	 * @return the index of the second vertex of edge e
+	 */
+	public int getSecondVertexIndex(int e) {
+		return endpoints[2*e+1];
+	}
+
+	public String toString() {
+		return ImplementationHelper.toString(this);
+	}
+
+	public class CSRVertex implements Vertex {
+
+		final int index;
+
+		CSRVertex(int index) {
+			this.index = index;
+		}
+
+		public Iterable<CSREdge> edges() {
+			return () -> new AdjacencyIterator<CSREdge>(index) {
+				CSREdge get(int p) {
+					return edges[adjacentEdge[p]];
+				}
+			};
+		}
+
+		public Iterable<CSRVertex> neighbors() {
+			return () -> new AdjacencyIterator<CSRVertex>(index) {
+				CSRVertex get(int p) {
+					return vertices[adjacentVertex[p]];
+				}
+			};
+		}
+
+		public int getDegree() {
+			return adjacencyStart[index+1] - adjacencyStart[index];
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public String toString() {
+			return String.valueOf(index);
+		}
+	}
+
+	public class CSREdge implements Edge {
+
+		final int index;
+
+		CSREdge(int index) {
+			this.index = index;
+		}
+
+		public CSRVertex getFirstVertex() {
+			return vertices[endpoints[2*index]];
+		}
+
+		public CSRVertex getSecondVertex() {
+			return vertices[endpoints[2*index+1]];
+		}
+
+		public CSRVertex getOppositeVertex(Vertex w) {
+			int u = endpoints[2*index];
+			return vertices[w.getIndex() == u ? endpoints[2*index+1] : u];
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public String toString() {
+			return String.valueOf(index);
+		}
+	}
+
+	/**
+	 * Iterates over the adjacency of a vertex.
+	 */
+	private abstract class AdjacencyIterator<T> implements Iterator<T> {
+
+		int p;
+		final int end;
+
+		AdjacencyIterator(int v) {
+			p = adjacencyStart[v];
+			end = adjacencyStart[v+1];
+		}
+
+		abstract T get(int p);
+
+		public boolean hasNext() {
+			return p < end;
+		}
+
+		public T next() {
+			if (p >= end) throw new NoSuchElementException();
+			return get(p++);
+		}
+	}
+
+}
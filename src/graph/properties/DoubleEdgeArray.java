@@ -0,0 +1,94 @@
+package graph.properties;
+
+import java.util.Arrays;
+
+import graph.Graph;
+import graph.Graph.Edge;
+
+/**
+ * Edge array storing double values in a primitive array, which avoids
+ * boxing when accessed by {@link #getDouble(Edge)} and {@link #setDouble(Edge, double)}.
+ * Entries that have not been set are 0, null values are not supported.
+ */
+public class DoubleEdgeArray extends EdgeArray<Double> {
+
+	private double[] data;
+
+	public DoubleEdgeArray(Graph g, boolean grow) {
+		this(g, getRequiredCapacity(g), grow);
+	}
+
+	public DoubleEdgeArray(Graph g) {
+		this(g, false);
+	}
+
+	public DoubleEdgeArray(Graph g, int n, boolean grow) {
+		super(g, null);
+		data = new double[n];
+		if (grow) assureAdjustment(g);
+	}
+
+	public DoubleEdgeArray(Graph g, int n) {
+		this(g, n, false);
+	}
+
+	public DoubleEdgeArray(DoubleEdgeArray a) {
+		super(a.g, null);
+		data = a.data.clone();
+	}
+
+	public double getDouble(Edge e) {
+		return data[e.getIndex()];
+	}
+
+	public void setDouble(Edge e, double value) {
+		data[e.getIndex()] = value;
+	}
+
+	/**
+	 * @return the value of the edge with the given index
+	 */
+	public double getDouble(int index) {
+		return data[index];
+	}
+
+	/**
+	 * Sets the value of the edge with the given index.
+	 */
+	public void setDouble(int index, double value) {
+		data[index] = value;
+	}
+
+	@Override
+	public Double get(Edge e) {
+		return data[e.getIndex()];
+	}
+
+	@Override
+	public void set(Edge e, Double value) {
+		data[e.getIndex()] = value;
+	}
+
+	@Override
+	public void deleted(Edge e) {
+		data[e.getIndex()] = 0;
+	}
+
+	@Override
+	protected void assureCapacity(int n) {
+		if (data.length < n) {
+			data = Arrays.copyOf(data, getGrownCapacity(data.length, n));
+		}
+	}
+
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		for (int i=0; i<data.length; i++) {
+			sb.append(i);
+			sb.append(':');
+			sb.append(data[i]);
+			sb.append(' ');
+		}
+		return sb.toString();
+	}
+}
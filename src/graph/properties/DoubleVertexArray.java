@@ -0,0 +1,94 @@
+package graph.properties;
+
+import java.util.Arrays;
+
+import graph.Graph;
+import graph.Graph.Vertex;
+
+/**
+ * Vertex array storing double values in a primitive array, which avoids
+ * boxing when accessed by {@link #getDouble(Vertex)} and {@link #setDouble(Vertex, double)}.
+ * Entries that have not been set are 0, null values are not supported.
+ */
+public class DoubleVertexArray extends VertexArray<Double> {
+
+	private double[] data;
+
+	public DoubleVertexArray(Graph g, boolean grow) {
+		this(g, getRequiredCapacity(g), grow);
+	}
+
+	public DoubleVertexArray(Graph g) {
+		this(g, false);
+	}
+
+	public DoubleVertexArray(Graph g, int n, boolean grow) {
+		super(g, null);
+		data = new double[n];
+		if (grow) assureAdjustment(g);
+	}
+
+	public DoubleVertexArray(Graph g, int n) {
+		this(g, n, false);
+	}
+
+	public DoubleVertexArray(DoubleVertexArray a) {
+		super(a.g, null);
+		data = a.data.clone();
+	}
+
+	public double getDouble(Vertex v) {
+		return data[v.getIndex()];
+	}
+
+	public void setDouble(Vertex v, double value) {
+		data[v.getIndex()] = value;
+	}
+
+	/**
+	 * @return the value of the vertex with the given index
+	 */
+	public double getDouble(int index) {
+		return data[index];
+	}
+
+	/**
+	 * Sets the value of the vertex with the given index.
+	 */
+	public void setDouble(int index, double value) {
+		data[index] = value;
+	}
+
+	@Override
+	public Double get(Vertex v) {
+		return data[v.getIndex()];
+	}
+
+	@Override
+	public void set(Vertex v, Double value) {
+		data[v.getIndex()] = value;
+	}
+
+	@Override
+	public void deleted(Vertex v) {
+		data[v.getIndex()] = 0;
+	}
+
+	@Override
+	protected void assureCapacity(int n) {
+		if (data.length < n) {
+			data = Arrays.copyOf(data, getGrownCapacity(data.length, n));
+		}
+	}
+
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		for (int i=0; i<data.length; i++) {
+			sb.append(i);
+			sb.append(':');
+			sb.append(data[i]);
+			sb.append(' ');
+		}
+		return sb.toString();
+	}
+}
@@ -1,5 +1,7 @@
 package graph.properties;
 
+import java.util.ArrayList;
+
 import graph.ExtendibleGraph;
 import graph.Graph;
 import graph.Graph.Edge;
@@ -24,16 +26,37 @@ public class EdgeArray<T> extends GraphArray<Edge, T> implements EdgeProperty<T>
 		this(g, n, false);
 	}
 	
+	/**
+	 * Creates an array without adjusting the size of the list of values, 
+	 * see {@link GraphArray#GraphArray(Graph, ArrayList)}.
+	 */
+	protected EdgeArray(Graph g, ArrayList<T> values) {
+		super(g, values);
+	}
+	
 	public EdgeArray(EdgeArray<T> ea) {
 		super(ea);
 //		assureAdjustment(g);
 	}
 
 	protected void assureCapacity() {
-		assureCapacity(((ExtendibleGraph)g).getNextEdgeIndex());
+		assureCapacity(getRequiredCapacity(g));
+	}
+	
+	/**
+	 * @return the number of values required for the edges of the graph
+	 */
+	protected static int getRequiredCapacity(Graph g) {
+		if (g instanceof ExtendibleGraph)
+			return ((ExtendibleGraph)g).getNextEdgeIndex();
+		else
+			return g.getEdgeCount();
 	}
 	
-	private void assureAdjustment(Graph g) {
+	/**
+	 * Registers this array to grow with the graph.
+	 */
+	protected void assureAdjustment(Graph g) {
 		if (g instanceof ExtendibleGraph) {
 			((ExtendibleGraph)g).addEdgeObserver(this);
 		}
@@ -22,6 +22,16 @@ public abstract class GraphArray<E extends Graph.Element,T> implements GraphObse
 		assureCapacity(n);
 	}
 	
+	/**
+	 * Creates an array with the given list of values without adjusting its
+	 * size. The list may be null for subclasses storing the values 
+	 * otherwise, which must then override all methods accessing the list.
+	 */
+	protected GraphArray(Graph g, ArrayList<T> values) {
+		this.g = g;
+		this.values = values;
+	}
+	
 	/**
 	 * Copy constructor.
 	 */
@@ -52,6 +62,7 @@ public abstract class GraphArray<E extends Graph.Element,T> implements GraphObse
 	}
 	
 	protected void assureCapacity(int n) {
+		values.ensureCapacity(n);
 		while (values.size() < n) {
 			values.add(null);
 		}
@@ -59,6 +70,14 @@ public abstract class GraphArray<E extends Graph.Element,T> implements GraphObse
 	
 	protected abstract void assureCapacity();
 	
+	/**
+	 * @return the length of an array grown from the given length to hold at
+	 * least n values, such that repeated growth takes amortized constant time
+	 */
+	protected static int getGrownCapacity(int length, int n) {
+		return Math.max(n, 2*length);
+	}
+	
 	public String toString() {
 		StringBuffer sb = new StringBuffer();
 		for (int i=0; i<values.size(); i++) {
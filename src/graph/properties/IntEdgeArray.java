@@ -0,0 +1,94 @@
+package graph.properties;
+
+import java.util.Arrays;
+
+import graph.Graph;
+import graph.Graph.Edge;
+
+/**
+ * Edge array storing int values in a primitive array, which avoids
+ * boxing when accessed by {@link #getInt(Edge)} and {@link #setInt(Edge, int)}.
+ * Entries that have not been set are 0, null values are not supported.
+ */
+public class IntEdgeArray extends EdgeArray<Integer> {
+
+	private int[] data;
+
+	public IntEdgeArray(Graph g, boolean grow) {
+		this(g, getRequiredCapacity(g), grow);
+	}
+
+	public IntEdgeArray(Graph g) {
+		this(g, false);
+	}
+
+	public IntEdgeArray(Graph g, int n, boolean grow) {
+		super(g, null);
+		data = new int[n];
+		if (grow) assureAdjustment(g);
+	}
+
+	public IntEdgeArray(Graph g, int n) {
+		this(g, n, false);
+	}
+
+	public IntEdgeArray(IntEdgeArray a) {
+		super(a.g, null);
+		data = a.data.clone();
+	}
+
+	public int getInt(Edge e) {
+		return data[e.getIndex()];
+	}
+
+	public void setInt(Edge e, int value) {
+		data[e.getIndex()] = value;
+	}
+
+	/**
+	 * @return the value of the edge with the given index
+	 */
+	public int getInt(int index) {
+		return data[index];
+	}
+
+	/**
+	 * Sets the value of the edge with the given index.
+	 */
+	public void setInt(int index, int value) {
+		data[index] = value;
+	}
+
+	@Override
+	public Integer get(Edge e) {
+		return data[e.getIndex()];
+	}
+
+	@Override
+	public void set(Edge e, Integer value) {
+		data[e.getIndex()] = value;
+	}
+
+	@Override
+	public void deleted(Edge e) {
+		data[e.getIndex()] = 0;
+	}
+
+	@Override
+	protected void assureCapacity(int n) {
+		if (data.length < n) {
+			data = Arrays.copyOf(data, getGrownCapacity(data.length, n));
+		}
+	}
+
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		for (int i=0; i<data.length; i++) {
+			sb.append(i);
+			sb.append(':');
+			sb.append(data[i]);
+			sb.append(' ');
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,94 @@
+package graph.properties;
+
+import java.util.Arrays;
+
+import graph.Graph;
+import graph.Graph.Vertex;
+
+/**
+ * Vertex array storing int values in a primitive array, which avoids
+ * boxing when accessed by {@link #getInt(Vertex)} and {@link #setInt(Vertex, int)}.
+ * Entries that have not been set are 0, null values are not supported.
+ */
+public class IntVertexArray extends VertexArray<Integer> {
+
+	private int[] data;
+
+	public IntVertexArray(Graph g, boolean grow) {
+		this(g, getRequiredCapacity(g), grow);
+	}
+
+	public IntVertexArray(Graph g) {
+		this(g, false);
+	}
+
+	public IntVertexArray(Graph g, int n, boolean grow) {
+		super(g, null);
+		data = new int[n];
+		if (grow) assureAdjustment(g);
+	}
+
+	public IntVertexArray(Graph g, int n) {
+		this(g, n, false);
+	}
+
+	public IntVertexArray(IntVertexArray a) {
+		super(a.g, null);
+		data = a.data.clone();
+	}
+
+	public int getInt(Vertex v) {
+		return data[v.getIndex()];
+	}
+
+	public void setInt(Vertex v, int value) {
+		data[v.getIndex()] = value;
+	}
+
+	/**
+	 * @return the value of the vertex with the given index
+	 */
+	public int getInt(int index) {
+		return data[index];
+	}
+
+	/**
+	 * Sets the value of the vertex with the given index.
+	 */
+	public void setInt(int index, int value) {
+		data[index] = value;
+	}
+
+	@Override
+	public Integer get(Vertex v) {
+		return data[v.getIndex()];
+	}
+
+	@Override
+	public void set(Vertex v, Integer value) {
+		data[v.getIndex()] = value;
+	}
+
+	@Override
+	public void deleted(Vertex v) {
+		data[v.getIndex()] = 0;
+	}
+
+	@Override
+	protected void assureCapacity(int n) {
+		if (data.length < n) {
+			data = Arrays.copyOf(data, getGrownCapacity(data.length, n));
+		}
+	}
+
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		for (int i=0; i<data.length; i++) {
+			sb.append(i);
+			sb.append(':');
+			sb.append(data[i]);
+			sb.append(' ');
+		}
+		return sb.toString();
+	}
+}
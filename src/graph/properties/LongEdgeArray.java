@@ -0,0 +1,94 @@
+package graph.properties;
+
+import java.util.Arrays;
+
+import graph.Graph;
+import graph.Graph.Edge;
+
+/**
+ * Edge array storing long values in a primitive array, which avoids
+ * boxing when accessed by {@link #getLong(Edge)} and {@link #setLong(Edge, long)}.
+ * Entries that have not been set are 0, null values are not supported.
+ */
+public class LongEdgeArray extends EdgeArray<Long> {
+
+	private long[] data;
+
+	public LongEdgeArray(Graph g, boolean grow) {
+		this(g, getRequiredCapacity(g), grow);
+	}
+
+	public LongEdgeArray(Graph g) {
+		this(g, false);
+	}
+
+	public LongEdgeArray(Graph g, int n, boolean grow) {
+		super(g, null);
+		data = new long[n];
+		if (grow) assureAdjustment(g);
+	}
+
+	public LongEdgeArray(Graph g, int n) {
+		this(g, n, false);
+	}
+
+	public LongEdgeArray(LongEdgeArray a) {
+		super(a.g, null);
+		data = a.data.clone();
+	}
+
+	public long getLong(Edge e) {
+		return data[e.getIndex()];
+	}
+
+	public void setLong(Edge e, long value) {
+		data[e.getIndex()] = value;
+	}
+
+	/**
+	 * @return the value of the edge with the given index
+	 */
+	public long getLong(int index) {
+		return data[index];
+	}
+
+	/**
+	 * Sets the value of the edge with the given index.
+	 */
+	public void setLong(int index, long value) {
+		data[index] = value;
+	}
+
+	@Override
+	public Long get(Edge e) {
+		return data[e.getIndex()];
+	}
+
+	@Override
+	public void set(Edge e, Long value) {
+		data[e.getIndex()] = value;
+	}
+
+	@Override
+	public void deleted(Edge e) {
+		data[e.getIndex()] = 0;
+	}
+
+	@Override
+	protected void assureCapacity(int n) {
+		if (data.length < n) {
+			data = Arrays.copyOf(data, getGrownCapacity(data.length, n));
+		}
+	}
+
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		for (int i=0; i<data.length; i++) {
+			sb.append(i);
+			sb.append(':');
+			sb.append(data[i]);
+			sb.append(' ');
+		}
+		return sb.toString();
+	}
+}
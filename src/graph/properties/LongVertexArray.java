@@ -0,0 +1,94 @@
+package graph.properties;
+
+import java.util.Arrays;
+
+import graph.Graph;
+import graph.Graph.Vertex;
+
+/**
+ * Vertex array storing long values in a primitive array, which avoids
+ * boxing when accessed by {@link #getLong(Vertex)} and {@link #setLong(Vertex, long)}.
+ * Entries that have not been set are 0, null values are not supported.
+ */
+public class LongVertexArray extends VertexArray<Long> {
+
+	private long[] data;
+
+	public LongVertexArray(Graph g, boolean grow) {
+		this(g, getRequiredCapacity(g), grow);
+	}
+
+	public LongVertexArray(Graph g) {
+		this(g, false);
+	}
+
+	public LongVertexArray(Graph g, int n, boolean grow) {
+		super(g, null);
+		data = new long[n];
+		if (grow) assureAdjustment(g);
+	}
+
+	public LongVertexArray(Graph g, int n) {
+		this(g, n, false);
+	}
+
+	public LongVertexArray(LongVertexArray a) {
+		super(a.g, null);
+		data = a.data.clone();
+	}
+
+	public long getLong(Vertex v) {
+		return data[v.getIndex()];
+	}
+
+	public void setLong(Vertex v, long value) {
+		data[v.getIndex()] = value;
+	}
+
+	/**
+	 * @return the value of the vertex with the given index
+	 */
+	public long getLong(int index) {
+		return data[index];
+	}
+
+	/**
+	 * Sets the value of the vertex with the given index.
+	 */
+	public void setLong(int index, long value) {
+		data[index] = value;
+	}
+
+	@Override
+	public Long get(Vertex v) {
+		return data[v.getIndex()];
+	}
+
+	@Override
+	public void set(Vertex v, Long value) {
+		data[v.getIndex()] = value;
+	}
+
+	@Override
+	public void deleted(Vertex v) {
+		data[v.getIndex()] = 0;
+	}
+
+	@Override
+	protected void assureCapacity(int n) {
+		if (data.length < n) {
+			data = Arrays.copyOf(data, getGrownCapacity(data.length, n));
+		}
+	}
+
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		for (int i=0; i<data.length; i++) {
+			sb.append(i);
+			sb.append(':');
+			sb.append(data[i]);
+			sb.append(' ');
+		}
+		return sb.toString();
+	}
+}
@@ -1,5 +1,7 @@
 package graph.properties;
 
+import java.util.ArrayList;
+
 import graph.ExtendibleGraph;
 import graph.Graph;
 import graph.Graph.Vertex;
@@ -25,19 +27,37 @@ public class VertexArray<T> extends GraphArray<Vertex, T> implements VertexPrope
 		this(g, n, false);
 	}
 	
+	/**
+	 * Creates an array without adjusting the size of the list of values, 
+	 * see {@link GraphArray#GraphArray(Graph, ArrayList)}.
+	 */
+	protected VertexArray(Graph g, ArrayList<T> values) {
+		super(g, values);
+	}
+	
 	public VertexArray(VertexArray<T> va) {
 		super(va);
 //		assureAdjustment(g);
 	}
 	
 	protected void assureCapacity() {
+		assureCapacity(getRequiredCapacity(g));
+	}
+	
+	/**
+	 * @return the number of values required for the vertices of the graph
+	 */
+	protected static int getRequiredCapacity(Graph g) {
 		if (g instanceof ExtendibleGraph)
-			assureCapacity(((ExtendibleGraph)g).getNextVertexIndex());
+			return ((ExtendibleGraph)g).getNextVertexIndex();
 		else
-			assureCapacity(g.getVertexCount());
+			return g.getVertexCount();
 	}
 	
-	private void assureAdjustment(Graph g) {
+	/**
+	 * Registers this array to grow with the graph.
+	 */
+	protected void assureAdjustment(Graph g) {
 		if (g instanceof ExtendibleGraph) {
 			((ExtendibleGraph)g).addVertexObserver(this);
 		}
@@ -0,0 +1,174 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import benchmark.dataset.LGDataset;
+import comparison.kernel.attributes.AttributedGraph;
+import comparison.kernel.attributes.Attributes;
+import concepts.TransformationTools;
+import graph.AdjListGraph;
+import graph.ExtendibleGraph;
+import graph.Graph.Edge;
+import graph.Graph.Vertex;
+import graph.properties.EdgeArray;
+import graph.properties.VertexArray;
+
+/**
+ * Reads graph data sets in the same format and with the same result as
+ * {@link AttributedGraphSetReader}. The files are memory-mapped and
+ * numbers are parsed directly from their bytes. The vertex and edge
+ * ranges of all graphs are determined first from the graph indicator and
+ * the adjacency file, then the graphs are built in parallel.
+ *
+ * @see MappedTextFile
+ */
+public class MappedGraphSetReader {
+
+	public LGDataset<AttributedGraph> read(String prefix) throws IOException {
+		LGDataset<AttributedGraph> ds = new LGDataset<AttributedGraph>(prefix);
+
+		// files
+		File fASparse = new File(prefix+"_A.txt");
+		File fNodeLabels = new File(prefix+"_node_labels.txt");
+		File fNodeAttributes = new File(prefix+"_node_attributes.txt");
+		File fGraphIndicator = new File(prefix+"_graph_indicator.txt");
+		File fGraphLabels = new File(prefix+"_graph_labels.txt");
+		File fGraphSets = new File(prefix+"_graph_sets.txt");
+		File fEdgeLabels = new File(prefix+"_edge_labels.txt");
+		File fEdgeAttributes = new File(prefix+"_edge_attributes.txt");
+
+		MappedTextFile mASparse = new MappedTextFile(fASparse);
+		MappedTextFile mGraphIndicator = new MappedTextFile(fGraphIndicator);
+		MappedTextFile mGraphLabels = new MappedTextFile(fGraphLabels);
+		MappedTextFile mNodeLabels = fNodeLabels.exists() ? new MappedTextFile(fNodeLabels) : null;
+		MappedTextFile mNodeAttributes = fNodeAttributes.exists() ? new MappedTextFile(fNodeAttributes) : null;
+		MappedTextFile mEdgeLabels = fEdgeLabels.exists() ? new MappedTextFile(fEdgeLabels) : null;
+		MappedTextFile mEdgeAttributes = fEdgeAttributes.exists() ? new MappedTextFile(fEdgeAttributes) : null;
+		MappedTextFile mGraphSets = fGraphSets.exists() ? new MappedTextFile(fGraphSets) : null;
+
+		// graph labels
+		int graphCount = 0;
+		while (graphCount < mGraphLabels.getLineCount()) {
+			if (mGraphLabels.getLineStart(graphCount) == mGraphLabels.getLineEnd(graphCount)) {
+				System.out.println("Warning: Stopped reading due to line break");
+				break;
+			}
+			graphCount++;
+		}
+
+		// vertices: the i-th graph consists of the consecutive lines of the
+		// graph indicator file with value i+1
+		int[] vertexStart = new int[graphCount+1];
+		int vertexIndex = 0;
+		for (int g=0; g<graphCount; g++) {
+			vertexStart[g] = vertexIndex;
+			while (vertexIndex < mGraphIndicator.getLineCount() &&
+					mGraphIndicator.parseInt(mGraphIndicator.getLineStart(vertexIndex),
+							mGraphIndicator.getLineEnd(vertexIndex)) == g+1) {
+				vertexIndex++;
+			}
+		}
+		vertexStart[graphCount] = vertexIndex;
+
+		// edges: an edge is assigned to the first graph containing both
+		// endpoints
+		int[] edgeStart = new int[graphCount+1];
+		int edgeCount = mASparse.getLineCount();
+		int[] endpoints = new int[2*edgeCount];
+		int edgeIndex = 0;
+		for (int g=0; g<graphCount; g++) {
+			edgeStart[g] = edgeIndex;
+			while (edgeIndex < edgeCount) {
+				long from = mASparse.getLineStart(edgeIndex);
+				long to = mASparse.getLineEnd(edgeIndex);
+				long comma = mASparse.indexOf(',', from, to);
+				int iU = mASparse.parseInt(from, comma);
+				int iV = mASparse.parseInt(comma+1, mASparse.indexOf(',', comma+1, to));
+				if (iU > vertexStart[g+1] || iV > vertexStart[g+1]) break;
+				endpoints[2*edgeIndex] = iU;
+				endpoints[2*edgeIndex+1] = iV;
+				edgeIndex++;
+			}
+		}
+		edgeStart[graphCount] = edgeIndex;
+
+		// build graphs
+		ArrayList<Integer> indices = new ArrayList<>(graphCount);
+		for (int g=0; g<graphCount; g++) {
+			indices.add(g);
+		}
+		ds.addAll(TransformationTools.transformAllParallel(g -> {
+			ExtendibleGraph graph = new AdjListGraph();
+			VertexArray<Attributes> va = new VertexArray<Attributes>(graph, true);
+			EdgeArray<Attributes> ea = new EdgeArray<Attributes>(graph, true);
+
+			graph.setProperty("class", mGraphLabels.getLine(g));
+			graph.setProperty("index", g);
+			if (mGraphSets != null) {
+				graph.setProperty("set", g < mGraphSets.getLineCount() ? mGraphSets.getLine(g) : null);
+			}
+
+			for (int i=vertexStart[g]; i<vertexStart[g+1]; i++) {
+				Vertex v = graph.createVertex();
+				va.set(v, createAttributes(mNodeLabels, mNodeAttributes, i));
+			}
+
+			int offset = vertexStart[g]+1;
+			for (int i=edgeStart[g]; i<edgeStart[g+1]; i++) {
+				Vertex u = graph.getVertex(endpoints[2*i]-offset);
+				Vertex v = graph.getVertex(endpoints[2*i+1]-offset);
+				if (!graph.hasEdge(u, v)) {
+					Edge e = graph.createEdge(u, v);
+					ea.set(e, createAttributes(mEdgeLabels, mEdgeAttributes, i));
+				}
+			}
+
+			return new AttributedGraph(graph, va, ea);
+		}, indices));
+
+		return ds;
+	}
+
+	/**
+	 * Creates the attributes from the given line of the label and attribute
+	 * file, which may be null if not present.
+	 */
+	private static Attributes createAttributes(MappedTextFile labels, MappedTextFile attributes, int line) {
+		String nominal = labels != null ? labels.getLine(line) : "";
+		Attributes attr = new Attributes(nominal, "");
+		if (attributes != null) {
+			double[] values = parseDoubles(attributes, line);
+			if (values != null) {
+				attr.setRealValuedAttributes(values);
+			} else {
+				attr.setRealValuedAttributes(attributes.getLine(line));
+			}
+		}
+		return attr;
+	}
+
+	/**
+	 * Parses a comma separated list of doubles.
+	 * @return the values or null if the line is empty or ends with a comma
+	 * and must be parsed by {@link Attributes#setRealValuedAttributes(String)}
+	 */
+	private static double[] parseDoubles(MappedTextFile f, int line) {
+		long from = f.getLineStart(line);
+		long to = f.getLineEnd(line);
+		if (from == to || f.get(to-1) == ',') return null;
+		int count = 1;
+		for (long p=from; p<to; p++) {
+			if (f.get(p) == ',') count++;
+		}
+		double[] r = new double[count];
+		for (int i=0; i<count; i++) {
+			long end = f.indexOf(',', from, to);
+			r[i] = f.parseDouble(from, end);
+			from = end+1;
+		}
+		return r;
+	}
+
+}
@@ -0,0 +1,235 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only view of a memory-mapped text file, which is split into lines
+ * in the same way as {@link java.io.BufferedReader#readLine()}, i.e., lines
+ * are terminated by '\n', '\r' or "\r\n". Numbers are parsed directly from
+ * the bytes of the file. Strings are decoded using the default charset.
+ *
+ * Instances can be accessed concurrently after construction.
+ */
+class MappedTextFile {
+
+	private static final int SEGMENT_BITS = 30;
+	private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+	private final MappedByteBuffer[] segments;
+	private final long size;
+
+	// start of each line followed by the size of the file
+	private long[] lineStart;
+	private int lineCount;
+
+	public MappedTextFile(File file) throws IOException {
+		try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			size = fc.size();
+			segments = new MappedByteBuffer[(int)((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+			for (int s=0; s<segments.length; s++) {
+				long offset = (long)s << SEGMENT_BITS;
+				segments[s] = fc.map(MapMode.READ_ONLY, offset, Math.min(SEGMENT_MASK+1, size-offset));
+			}
+		}
+		indexLines();
+	}
+
+	private void indexLines() {
+		lineStart = new long[1024];
+		lineCount = 0;
+		long pos = 0;
+		while (pos < size) {
+			if (lineCount+1 == lineStart.length) {
+				lineStart = Arrays.copyOf(lineStart, 2*lineStart.length);
+			}
+			lineStart[lineCount++] = pos;
+			// find line terminator
+			MappedByteBuffer seg = segments[(int)(pos >>> SEGMENT_BITS)];
+			int i = (int)(pos & SEGMENT_MASK);
+			byte b = 0;
+			while (true) {
+				if (i == seg.limit()) {
+					pos += i - (pos & SEGMENT_MASK);
+					if (pos == size) break;
+					seg = segments[(int)(pos >>> SEGMENT_BITS)];
+					i = 0;
+				}
+				b = seg.get(i++);
+				if (b == '\n' || b == '\r') {
+					pos += i - (pos & SEGMENT_MASK);
+					break;
+				}
+			}
+			if (b == '\r' && pos < size && get(pos) == '\n') pos++;
+		}
+		lineStart[lineCount] = size;
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public byte get(long pos) {
+		return segments[(int)(pos >>> SEGMENT_BITS)].get((int)(pos & SEGMENT_MASK));
+	}
+
+	/**
+	 * @return the number of lines
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @return the position of the first character of the line
+	 */
+	public long getLineStart(int line) {
+		return lineStart[line];
+	}
+
+	/**
+	 * @return the position after the last character of the line excluding
+	 * the line terminator
+	 */
+	public long getLineEnd(int line) {
+		long end = lineStart[line+1];
+		if (end > lineStart[line] && get(end-1) == '\n') end--;
+		if (end > lineStart[line] && get(end-1) == '\r') end--;
+		return end;
+	}
+
+	/**
+	 * @return the content of the line without line terminator
+	 */
+	public String getLine(int line) {
+		return getString(getLineStart(line), getLineEnd(line));
+	}
+
+	/**
+	 * @return the string represented by the bytes in the range [from, to)
+	 */
+	public String getString(long from, long to) {
+		byte[] b = new byte[(int)(to-from)];
+		for (int i=0; i<b.length; i++) {
+			b[i] = get(from+i);
+		}
+		return new String(b, Charset.defaultCharset());
+	}
+
+	/**
+	 * Returns the position of the first occurrence of the character in the
+	 * range [from, to) or to if it does not occur.
+	 */
+	public long indexOf(char c, long from, long to) {
+		for (long p=from; p<to; p++) {
+			if (get(p) == c) return p;
+		}
+		return to;
+	}
+
+	/**
+	 * Parses a decimal integer in the range [from, to), which may be
+	 * surrounded by whitespace.
+	 * @throws NumberFormatException if the range does not contain an integer
+	 */
+	public int parseInt(long from, long to) throws NumberFormatException {
+		while (from < to && get(from) <= ' ') from++;
+		while (to > from && get(to-1) <= ' ') to--;
+		long p = from;
+		boolean negative = false;
+		if (p < to && (get(p) == '-' || get(p) == '+')) {
+			negative = get(p) == '-';
+			p++;
+		}
+		if (p == to || to - p > 10) return Integer.parseInt(getString(from, to));
+		long r = 0;
+		for (; p<to; p++) {
+			int d = get(p) - '0';
+			if (d < 0 || d > 9) throw new NumberFormatException("For input string: \""+getString(from, to)+"\"");
+			r = 10*r + d;
+		}
+		r = negative ? -r : r;
+		if (r != (int)r) throw new NumberFormatException("For input string: \""+getString(from, to)+"\"");
+		return (int)r;
+	}
+
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**
+	 * Parses a double in the range [from, to) with the same result as
+	 * {@link Double#valueOf(String)}. Decimal numbers with at most 15
+	 * significant digits and small exponents are converted directly, since
+	 * both the digits and the power of ten are exactly representable and
+	 * a single multiplication or division is correctly rounded. All other
+	 * representations are passed to {@link Double#parseDouble(String)}.
+	 */
+	public double parseDouble(long from, long to) throws NumberFormatException {
+		long p = from, end = to;
+		while (p < end && get(p) <= ' ') p++;
+		while (end > p && get(end-1) <= ' ') end--;
+		boolean negative = false;
+		if (p < end && (get(p) == '-' || get(p) == '+')) {
+			negative = get(p) == '-';
+			p++;
+		}
+		long mantissa = 0;
+		int digits = 0, scale = 0, exponent = 0;
+		boolean any = false, point = false;
+		for (; p<end; p++) {
+			byte b = get(p);
+			if (b >= '0' && b <= '9') {
+				any = true;
+				if (mantissa == 0 && b == '0') {
+					if (point) scale--;
+					continue;
+				}
+				if (++digits > 15) return Double.parseDouble(getString(from, to));
+				mantissa = 10*mantissa + (b - '0');
+				if (point) scale--;
+			} else if (b == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (p < end && any && (get(p) == 'e' || get(p) == 'E')) {
+			p++;
+			boolean negativeExponent = false;
+			if (p < end && (get(p) == '-' || get(p) == '+')) {
+				negativeExponent = get(p) == '-';
+				p++;
+			}
+			if (p == end || end - p > 3) return Double.parseDouble(getString(from, to));
+			for (; p<end; p++) {
+				int d = get(p) - '0';
+				if (d < 0 || d > 9) return Double.parseDouble(getString(from, to));
+				exponent = 10*exponent + d;
+			}
+			if (negativeExponent) exponent = -exponent;
+		}
+		if (!any || p != end) return Double.parseDouble(getString(from, to));
+		int e = scale + exponent;
+		double r;
+		if (mantissa == 0) {
+			r = 0d;
+		} else if (e >= 0 && e <= 22) {
+			r = mantissa * POWERS_OF_TEN[e];
+		} else if (e < 0 && e >= -22) {
+			r = mantissa / POWERS_OF_TEN[-e];
+		} else {
+			return Double.parseDouble(getString(from, to));
+		}
+		return negative ? -r : r;
+	}
+
+}
@@ -0,0 +1,309 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Set;
+
+import benchmark.dataset.SDataset;
+import concepts.TransformationTools;
+import graph.AdjListGraph;
+import graph.Graph;
+import graph.Graph.Edge;
+import graph.Graph.Vertex;
+import graph.LGraph;
+import graph.properties.EdgeArray;
+import graph.properties.VertexArray;
+
+/**
+ * Binary cache of a data set with simple labels as obtained from
+ * {@link benchmark.dataset.AttrDataset#getSDataset()}. The cache file is
+ * stored next to the data files and is valid as long as the names, sizes
+ * and modification times of the data files do not change.
+ *
+ * The file contains a dictionary of all strings occurring as labels,
+ * class labels or sets followed by primitive arrays: for each graph the
+ * ids of its class label and set and the number of vertices and edges,
+ * the vertex label ids, the endpoints of the edges in the order of their
+ * indices and the edge label ids. Loading maps the file into memory and
+ * rebuilds the graphs in parallel; each label is represented by a single
+ * string instance.
+ */
+public class SDatasetCache {
+
+	private static final int MAGIC = 0x4B534443; // "KSDC"
+	private static final int VERSION = 1;
+
+	private static final String[] DATA_FILES = { "_A.txt", "_node_labels.txt",
+		"_node_attributes.txt", "_graph_indicator.txt", "_graph_labels.txt",
+		"_graph_sets.txt", "_edge_labels.txt", "_edge_attributes.txt" };
+
+	/**
+	 * Suffix of the cache file appended to the data set prefix.
+	 */
+	public static final String SUFFIX = "_sdataset.cache";
+
+	// ids for graphs without set property and a set property null
+	private static final int NO_SET = -2;
+	private static final int NULL_SET = -1;
+
+	private final File cacheFile;
+	private final String key;
+
+	/**
+	 * @param prefix the path of the data set files without suffix, see
+	 * {@link AttributedGraphSetReader#read(String)}
+	 */
+	public SDatasetCache(String prefix) {
+		this.cacheFile = new File(prefix+SUFFIX);
+		StringBuilder sb = new StringBuilder();
+		for (String s : DATA_FILES) {
+			File f = new File(prefix+s);
+			if (f.exists()) {
+				sb.append(f.getName()).append('|').append(f.length()).append('|').append(f.lastModified()).append('\n');
+			}
+		}
+		this.key = sb.toString();
+	}
+
+	public File getFile() {
+		return cacheFile;
+	}
+
+	/**
+	 * Loads the data set from the cache file.
+	 * @param id the id of the data set
+	 * @return the data set or null if the cache file does not exist, does
+	 * not match the current data files or is corrupt, in the last case the
+	 * file is deleted
+	 * @throws IOException
+	 */
+	public SDataset read(String id) throws IOException {
+		if (!cacheFile.exists() || cacheFile.length() > Integer.MAX_VALUE) return null;
+		MappedByteBuffer bb;
+		try (FileChannel fc = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+			bb = fc.map(MapMode.READ_ONLY, 0, fc.size());
+		}
+		try {
+			return read(id, bb);
+		} catch (RuntimeException e) {
+			// truncated or otherwise damaged file
+			Files.deleteIfExists(cacheFile.toPath());
+			return null;
+		}
+	}
+
+	private SDataset read(String id, MappedByteBuffer bb) {
+		bb.order(ByteOrder.LITTLE_ENDIAN);
+		if (bb.remaining() < 8 || bb.getInt() != MAGIC || bb.getInt() != VERSION) return null;
+		if (!key.equals(getString(bb))) return null;
+
+		String[] strings = new String[checkCount(bb, bb.getInt(), 4)];
+		for (int i=0; i<strings.length; i++) {
+			strings[i] = getString(bb);
+		}
+		int graphCount = checkCount(bb, bb.getInt(), 16);
+		int[] graphInfo = getInts(bb, 4*graphCount);
+		int[] vertexStart = new int[graphCount+1];
+		int[] edgeStart = new int[graphCount+1];
+		for (int g=0; g<graphCount; g++) {
+			vertexStart[g+1] = vertexStart[g] + graphInfo[4*g+2];
+			edgeStart[g+1] = edgeStart[g] + graphInfo[4*g+3];
+		}
+		int[] vertexLabels = getInts(bb, vertexStart[graphCount]);
+		int[] endpoints = getInts(bb, 2*edgeStart[graphCount]);
+		int[] edgeLabels = getInts(bb, edgeStart[graphCount]);
+		if (bb.hasRemaining()) {
+			throw new IllegalStateException("Unexpected data at the end of the cache file.");
+		}
+
+		ArrayList<Integer> indices = new ArrayList<>(graphCount);
+		for (int g=0; g<graphCount; g++) {
+			indices.add(g);
+		}
+		SDataset ds = new SDataset(id);
+		ds.addAll(TransformationTools.transformAllParallel(g -> {
+			int n = vertexStart[g+1] - vertexStart[g];
+			int m = edgeStart[g+1] - edgeStart[g];
+			AdjListGraph graph = new AdjListGraph(n, m);
+			graph.setProperty("class", strings[graphInfo[4*g]]);
+			graph.setProperty("index", g);
+			int set = graphInfo[4*g+1];
+			if (set != NO_SET) {
+				graph.setProperty("set", set == NULL_SET ? null : strings[set]);
+			}
+			VertexArray<String> va = new VertexArray<String>(graph, n);
+			for (int i=vertexStart[g]; i<vertexStart[g+1]; i++) {
+				va.set(graph.createVertex(), strings[vertexLabels[i]]);
+			}
+			EdgeArray<String> ea = new EdgeArray<String>(graph, m);
+			for (int i=edgeStart[g]; i<edgeStart[g+1]; i++) {
+				Edge e = graph.createEdge(graph.getVertex(endpoints[2*i]), graph.getVertex(endpoints[2*i+1]));
+				ea.set(e, strings[edgeLabels[i]]);
+			}
+			return new LGraph<String, String>(graph, va, ea);
+		}, indices));
+		return ds;
+	}
+
+	/**
+	 * Writes the data set to the cache file. The file is written to a
+	 * unique temporary file first, which then atomically replaces the cache
+	 * file.
+	 * @param ds the data set
+	 * @throws IOException
+	 */
+	public void write(SDataset ds) throws IOException {
+		HashMap<String, Integer> ids = new HashMap<>();
+		ArrayList<String> strings = new ArrayList<>();
+		int vertexCount = 0, edgeCount = 0;
+		for (LGraph<String, String> lg : ds) {
+			vertexCount += lg.getGraph().getVertexCount();
+			edgeCount += lg.getGraph().getEdgeCount();
+		}
+		int[] graphInfo = new int[4*ds.size()];
+		int[] vertexLabels = new int[vertexCount];
+		int[] endpoints = new int[2*edgeCount];
+		int[] edgeLabels = new int[edgeCount];
+		int g = 0, k = 0, l = 0;
+		for (LGraph<String, String> lg : ds) {
+			Graph graph = lg.getGraph();
+			graphInfo[4*g] = getId(String.valueOf(graph.getProperty("class")), ids, strings);
+			String[] properties = graph.getProperties();
+			int set = NO_SET;
+			for (String p : properties) {
+				if (p.equals("set")) {
+					Object o = graph.getProperty("set");
+					set = o == null ? NULL_SET : getId(o.toString(), ids, strings);
+				}
+			}
+			graphInfo[4*g+1] = set;
+			graphInfo[4*g+2] = graph.getVertexCount();
+			graphInfo[4*g+3] = graph.getEdgeCount();
+			for (Vertex v : graph.vertices()) {
+				vertexLabels[k++] = getId(lg.getVertexLabel().get(v), ids, strings);
+			}
+			for (Edge e : graph.edges()) {
+				endpoints[2*l] = e.getFirstVertex().getIndex();
+				endpoints[2*l+1] = e.getSecondVertex().getIndex();
+				edgeLabels[l++] = getId(lg.getEdgeLabel().get(e), ids, strings);
+			}
+			g++;
+		}
+
+		// unique temporary file in the same directory, such that concurrent
+		// writers do not interfere and the move is atomic
+		Path dir = cacheFile.getAbsoluteFile().getParentFile().toPath();
+		Path tmp = Files.createTempFile(dir, cacheFile.getName(), ".tmp");
+		try {
+			// the temporary file is only accessible by the owner, the cache
+			// file gets the permissions of the directory
+			try {
+				Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(dir);
+				permissions.removeAll(EnumSet.of(PosixFilePermission.OWNER_EXECUTE, 
+						PosixFilePermission.GROUP_EXECUTE, PosixFilePermission.OTHERS_EXECUTE));
+				Files.setPosixFilePermissions(tmp, permissions);
+			} catch (UnsupportedOperationException e) {
+				// no POSIX file system
+			}
+			try (FileChannel fc = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer bb = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+				putInt(fc, bb, MAGIC);
+				putInt(fc, bb, VERSION);
+				putString(fc, bb, key);
+				putInt(fc, bb, strings.size());
+				for (String s : strings) {
+					putString(fc, bb, s);
+				}
+				putInt(fc, bb, ds.size());
+				putInts(fc, bb, graphInfo);
+				putInts(fc, bb, vertexLabels);
+				putInts(fc, bb, endpoints);
+				putInts(fc, bb, edgeLabels);
+				flush(fc, bb);
+			}
+			Files.move(tmp, cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private static int getId(String s, HashMap<String, Integer> ids, ArrayList<String> strings) {
+		Integer id = ids.get(s);
+		if (id == null) {
+			id = strings.size();
+			ids.put(s, id);
+			strings.add(s);
+		}
+		return id;
+	}
+
+	private static String getString(ByteBuffer bb) {
+		byte[] b = new byte[checkCount(bb, bb.getInt(), 1)];
+		bb.get(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	private static int[] getInts(ByteBuffer bb, int n) {
+		int[] r = new int[checkCount(bb, n, 4)];
+		bb.asIntBuffer().get(r);
+		bb.position(bb.position() + 4*n);
+		return r;
+	}
+
+	/**
+	 * Checks that the remaining bytes suffice for the given number of
+	 * elements, such that corrupt counts do not cause huge allocations.
+	 */
+	private static int checkCount(ByteBuffer bb, int count, int bytes) {
+		if (count < 0 || (long)count * bytes > bb.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		return count;
+	}
+
+	private static void putInt(FileChannel fc, ByteBuffer bb, int i) throws IOException {
+		if (bb.remaining() < 4) flush(fc, bb);
+		bb.putInt(i);
+	}
+
+	private static void putInts(FileChannel fc, ByteBuffer bb, int[] a) throws IOException {
+		for (int i : a) {
+			putInt(fc, bb, i);
+		}
+	}
+
+	private static void putString(FileChannel fc, ByteBuffer bb, String s) throws IOException {
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		putInt(fc, bb, b.length);
+		for (int k=0; k<b.length; ) {
+			if (!bb.hasRemaining()) flush(fc, bb);
+			int len = Math.min(bb.remaining(), b.length-k);
+			bb.put(b, k, len);
+			k += len;
+		}
+	}
+
+	private static void flush(FileChannel fc, ByteBuffer bb) throws IOException {
+		bb.flip();
+		while (bb.hasRemaining()) {
+			fc.write(bb);
+		}
+		bb.clear();
+	}
+
+}
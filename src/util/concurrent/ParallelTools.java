@@ -0,0 +1,72 @@
+package util.concurrent;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Provides the thread pool shared by all parallel computations, e.g., the
+ * computation of gram matrices. The number of threads can be configured
+ * globally before the first parallel computation is started.
+ *
+ * Note: Setting the number of threads to one results in sequential
+ * computation by the calling thread.
+ */
+public class ParallelTools {
+
+	private static int threadCount = Runtime.getRuntime().availableProcessors();
+	private static ForkJoinPool pool;
+
+	/**
+	 * Sets the number of threads used for parallel computations.
+	 * @param threads number of threads, must be positive
+	 */
+	public static synchronized void setThreadCount(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be positive.");
+		}
+		if (threads != threadCount && pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		threadCount = threads;
+	}
+
+	public static synchronized int getThreadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * @return true iff more than one thread is used
+	 */
+	public static boolean isParallel() {
+		return getThreadCount() > 1;
+	}
+
+	/**
+	 * Returns the shared pool; it is created lazily with the configured
+	 * number of threads.
+	 */
+	public static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(threadCount);
+		}
+		return pool;
+	}
+
+	/**
+	 * Performs the given task and waits for its completion. If the calling
+	 * thread is a worker of the shared pool the task is invoked directly,
+	 * otherwise it is submitted to the shared pool.
+	 * @param task the task
+	 * @return the result of the task
+	 */
+	public static <T> T invoke(ForkJoinTask<T> task) {
+		ForkJoinPool p = getPool();
+		if (ForkJoinTask.getPool() == p) {
+			return task.invoke();
+		} else {
+			return p.invoke(task);
+		}
+	}
+
+}
@@ -1,76 +1,623 @@
 package util.kernel;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.Writer;
-
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import util.concurrent.ParallelTools;
 
 
 
 public class GramUtil {
 	
+	/**
+	 * Magic number of binary gram files, the ASCII characters "KGRM".
+	 */
+	public static final int BINARY_MAGIC = 0x4B47524D;
+	public static final int BINARY_VERSION = 2;
+	
+	/**
+	 * Size of the header of binary gram files in bytes.
+	 */
+	public static final int BINARY_HEADER_SIZE = 32;
+	
+	private static final int BUFFER_SIZE = 1 << 20;
+	
+	/**
+	 * Approximate number of entries formatted by a single task when writing 
+	 * LibSVM files in parallel.
+	 */
+	private static final int LIBSVM_CHUNK_SIZE = 1 << 16;
+	
 	public static void writeLibSVMFile(double[][] m, String[] classes, String fileName) throws IOException {
-		FileWriter fw = new FileWriter(fileName, false);
-		BufferedWriter bw = new BufferedWriter(fw);
-		GramUtil.writeLibSVMString(m, classes, bw);
-		bw.close();
+		try (OutputStream os = new BufferedOutputStream(new FileOutputStream(fileName, false), 1 << 16)) {
+			GramUtil.writeLibSVMString(m, classes, os);
+		}
 	}
 	
 	public static void writeLibSVMFile(GramMatrix gram, String fileName) throws IOException {
 		GramUtil.writeLibSVMFile(gram.gram, gram.classes, fileName);
 	}
 	
+	/**
+	 * Writes the submatrix given by the selected rows and columns in LibSVM format.
+	 */
+	public static void writeLibSVMFile(double[][] m, String[] classes, int[] rows, int[] columns, String fileName) throws IOException {
+		try (OutputStream os = new BufferedOutputStream(new FileOutputStream(fileName, false), 1 << 16)) {
+			writeLibSVMString(m, classes, rows, columns, os);
+		}
+	}
+	
 	public static void writeLibSVMFile(GramMatrix gram, String fileName, ArrayList<Integer> rows, ArrayList<Integer> columns) throws IOException {
-		FileWriter fw = new FileWriter(fileName, false);
-		BufferedWriter bw = new BufferedWriter(fw);
-		writeLibSVMString(gram.gram, gram.classes, rows, columns, bw);
-		bw.close();
+		GramUtil.writeLibSVMFile(gram.gram, gram.classes, toArray(rows), toArray(columns), fileName);
+	}
+	
+	/**
+	 * Writes a symmetric matrix in binary format. The file consists of
+	 * <ul>
+	 * <li>a header of {@value #BINARY_HEADER_SIZE} bytes: the magic number 
+	 * {@link #BINARY_MAGIC}, the version, the precision in bytes per entry 
+	 * (4 or 8), the dimension n (all int), the offset of the class labels 
+	 * and the fingerprint of the graphs or 0 if unknown (long), see 
+	 * {@link benchmark.dataset.SDataset#getPrefixFingerprints()},</li>
+	 * <li>the upper triangle of the matrix column by column, i.e., for each 
+	 * i the entries m[0][i], ..., m[i][i] as float or double,</li>
+	 * <li>the class labels: their number (int) followed by each label as its 
+	 * length in bytes (int) and its UTF-8 representation.</li>
+	 * </ul>
+	 * All values are stored in little-endian byte order.
+	 * @param m the symmetric matrix of quadratic size
+	 * @param classes the class labels
+	 * @param fileName the file name
+	 * @param singlePrecision true to store entries as float, false to store them as double
+	 * @throws IOException
+	 */
+	public static void writeBinaryFile(double[][] m, String[] classes, String fileName, boolean singlePrecision) throws IOException {
+		writeBinaryFile(m, classes, 0, fileName, singlePrecision);
+	}
+	
+	/**
+	 * Writes a symmetric matrix in binary format together with the 
+	 * fingerprint of the graphs.
+	 * @see #writeBinaryFile(double[][], String[], String, boolean)
+	 */
+	public static void writeBinaryFile(double[][] m, String[] classes, long fingerprint, String fileName, boolean singlePrecision) throws IOException {
+		int n = m.length;
+		int precision = singlePrecision ? 4 : 8;
+		long labelsOffset = BINARY_HEADER_SIZE + precision * ((long)n * (n+1) / 2);
+		try (FileChannel fc = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, 
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer bb = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			bb.putInt(BINARY_MAGIC);
+			bb.putInt(BINARY_VERSION);
+			bb.putInt(precision);
+			bb.putInt(n);
+			bb.putLong(labelsOffset);
+			bb.putLong(fingerprint);
+			for (int i=0; i<n; i++) {
+				// column i of the upper triangle is the beginning of row i
+				double[] row = m[i];
+				for (int j=0; j<=i; j++) {
+					if (bb.remaining() < precision) flush(fc, bb);
+					if (singlePrecision) {
+						bb.putFloat((float)row[j]);
+					} else {
+						bb.putDouble(row[j]);
+					}
+				}
+			}
+			writeLabels(fc, bb, classes);
+		}
+	}
+	
+	public static void writeBinaryFile(GramMatrix gram, String fileName, boolean singlePrecision) throws IOException {
+		GramUtil.writeBinaryFile(gram.gram, gram.classes, fileName, singlePrecision);
+	}
+	
+	/**
+	 * Converts a complete matrix stored in tiles into binary format. The 
+	 * matrix is streamed block by block, such that only one block of rows 
+	 * is held in memory.
+	 * @see #writeBinaryFile(double[][], String[], String, boolean)
+	 * @param file the tiled matrix
+	 * @param fileName the file name
+	 * @param singlePrecision true to store entries as float, false to store them as double
+	 * @throws IOException
+	 */
+	public static void writeBinaryFile(TiledGramFile file, String fileName, boolean singlePrecision) throws IOException {
+		int n = file.getDimension();
+		int precision = singlePrecision ? 4 : 8;
+		long labelsOffset = BINARY_HEADER_SIZE + precision * ((long)n * (n+1) / 2);
+		try (FileChannel fc = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, 
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer bb = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			bb.putInt(BINARY_MAGIC);
+			bb.putInt(BINARY_VERSION);
+			bb.putInt(precision);
+			bb.putInt(n);
+			bb.putLong(labelsOffset);
+			bb.putLong(file.getFingerprint());
+			double[][] rows = new double[file.getBlockSize()][n];
+			for (int bi=0; bi<file.getBlockCount(); bi++) {
+				file.readRows(bi, rows);
+				for (int r=0; r<file.getBlockLength(bi); r++) {
+					// column i of the upper triangle is the beginning of row i
+					int i = bi*file.getBlockSize() + r;
+					for (int j=0; j<=i; j++) {
+						if (bb.remaining() < precision) flush(fc, bb);
+						if (singlePrecision) {
+							bb.putFloat((float)rows[r][j]);
+						} else {
+							bb.putDouble(rows[r][j]);
+						}
+					}
+				}
+			}
+			writeLabels(fc, bb, file.getClasses());
+		}
+	}
+	
+	/**
+	 * Reads a matrix stored in binary format.
+	 * @see #writeBinaryFile(double[][], String[], String, boolean)
+	 * @param fileName the file name
+	 * @return the gram matrix and class labels
+	 * @throws IOException if the file is not a valid binary gram file
+	 */
+	public static GramMatrix readBinaryFile(String fileName) throws IOException {
+		try (FileChannel fc = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			ByteBuffer bb = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			BinaryHeader h = readHeader(fc, bb, fileName);
+			int n = h.n, precision = h.precision;
+			
+			double[][] m = new double[n][n];
+			for (int i=0; i<n; i++) {
+				for (int j=0; j<=i; j++) {
+					if (bb.remaining() < precision) fill(fc, bb, precision);
+					m[j][i] = m[i][j] = precision == 4 ? bb.getFloat() : bb.getDouble();
+				}
+			}
+			
+			return new GramMatrix(m, readLabels(fc, bb, h.labelsOffset));
+		}
+	}
+	
+	/**
+	 * Reads the dimension of a matrix stored in binary format.
+	 * @param fileName the file name
+	 * @return the number of rows and columns
+	 * @throws IOException if the file is not a valid binary gram file
+	 */
+	public static int readBinaryDimension(String fileName) throws IOException {
+		return readHeader(fileName).n;
+	}
+	
+	/**
+	 * Reads the fingerprint of the graphs of a matrix stored in binary 
+	 * format.
+	 * @param fileName the file name
+	 * @return the fingerprint, 0 if unknown
+	 * @throws IOException if the file is not a valid binary gram file
+	 */
+	public static long readBinaryFingerprint(String fileName) throws IOException {
+		return readHeader(fileName).fingerprint;
+	}
+	
+	private static BinaryHeader readHeader(String fileName) throws IOException {
+		try (FileChannel fc = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			ByteBuffer bb = ByteBuffer.allocate(BINARY_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			return readHeader(fc, bb, fileName);
+		}
+	}
+	
+	/**
+	 * Extends a symmetric n x n matrix stored in binary format to an
+	 * (n+m) x (n+m) matrix by appending m columns of the upper triangle. 
+	 * Since the upper triangle is stored column by column, only the class 
+	 * labels and the header are rewritten. The file is created if it does 
+	 * not exist.
+	 * 
+	 * The file remains valid if the process is interrupted: The old class 
+	 * labels are first copied behind the region of the new columns and 
+	 * labels and the header is redirected to the copy. Then the columns and 
+	 * the new labels are written and the header is updated. Each step is 
+	 * forced to the storage device before the header is changed, the copy 
+	 * is finally truncated.
+	 * @see #writeBinaryFile(double[][], String[], String, boolean)
+	 * @param columns the new columns, where columns[c] contains the entries
+	 * m[0][n+c], ..., m[n+c][n+c]
+	 * @param classes the class labels of the new rows
+	 * @param fingerprint the fingerprint of all graphs including the new ones
+	 * @param fileName the file name
+	 * @param singlePrecision the precision of a new file, the precision of an 
+	 * existing file is retained
+	 * @throws IOException if the file is not a valid binary gram file
+	 */
+	public static void appendBinaryFile(double[][] columns, String[] classes, long fingerprint, String fileName, boolean singlePrecision) throws IOException {
+		if (columns.length != classes.length) {
+			throw new IllegalArgumentException("The number of columns and class labels differ.");
+		}
+		if (!Files.exists(Paths.get(fileName))) {
+			writeBinaryFile(new double[0][0], new String[0], fileName, singlePrecision);
+		}
+		try (FileChannel fc = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer bb = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			BinaryHeader h = readHeader(fc, bb, fileName);
+			int n = h.n, precision = h.precision;
+			long entries = 0;
+			for (int c=0; c<columns.length; c++) {
+				if (columns[c].length != n+c+1) {
+					throw new IllegalArgumentException("Column "+(n+c)+" must have "+(n+c+1)+" entries.");
+				}
+				entries += columns[c].length;
+			}
+			String[] oldClasses = readLabels(fc, bb, h.labelsOffset);
+			long oldEnd = fc.position() - bb.remaining();
+			String[] newClasses = Arrays.copyOf(oldClasses, n+classes.length);
+			System.arraycopy(classes, 0, newClasses, n, classes.length);
+			// the columns are appended to the entries of the old columns, which
+			// may be followed by a copy of the labels of an interrupted call
+			long dataEnd = BINARY_HEADER_SIZE + precision * ((long)n * (n+1) / 2);
+			long labelsOffset = dataEnd + precision * entries;
+			long copyOffset = Math.max(oldEnd, labelsOffset + getLabelsSize(newClasses));
+			
+			// redirect the header to a copy of the old labels
+			fc.position(copyOffset);
+			bb.clear();
+			writeLabels(fc, bb, oldClasses);
+			fc.force(false);
+			writeHeader(fc, bb, precision, n, copyOffset, h.fingerprint);
+			
+			fc.position(dataEnd);
+			for (double[] column : columns) {
+				for (double d : column) {
+					if (bb.remaining() < precision) flush(fc, bb);
+					if (precision == 4) {
+						bb.putFloat((float)d);
+					} else {
+						bb.putDouble(d);
+					}
+				}
+			}
+			writeLabels(fc, bb, newClasses);
+			fc.force(false);
+			writeHeader(fc, bb, precision, n+columns.length, labelsOffset, fingerprint);
+			fc.truncate(labelsOffset + getLabelsSize(newClasses));
+		}
+	}
+	
+	/**
+	 * Writes the header at the start of the channel and forces it to the
+	 * storage device.
+	 */
+	private static void writeHeader(FileChannel fc, ByteBuffer bb, int precision, int n, long labelsOffset, long fingerprint) throws IOException {
+		bb.clear();
+		bb.putInt(BINARY_MAGIC);
+		bb.putInt(BINARY_VERSION);
+		bb.putInt(precision);
+		bb.putInt(n);
+		bb.putLong(labelsOffset);
+		bb.putLong(fingerprint);
+		bb.flip();
+		for (long pos=0; bb.hasRemaining(); ) {
+			pos += fc.write(bb, pos);
+		}
+		bb.clear();
+		fc.force(false);
+	}
+	
+	/**
+	 * @return the number of bytes written by {@link #writeLabels(FileChannel, ByteBuffer, String[])}
+	 */
+	private static long getLabelsSize(String[] classes) {
+		long size = 4;
+		for (String c : classes) {
+			size += 4 + c.getBytes(StandardCharsets.UTF_8).length;
+		}
+		return size;
+	}
+	
+	private static class BinaryHeader {
+		int precision;
+		int n;
+		long labelsOffset;
+		long fingerprint;
+	}
+	
+	/**
+	 * Reads the header from the start of the channel, the buffer is ready 
+	 * for reading the first entry afterwards.
+	 */
+	private static BinaryHeader readHeader(FileChannel fc, ByteBuffer bb, String fileName) throws IOException {
+		fc.position(0);
+		bb.clear();
+		bb.limit(0);
+		fill(fc, bb, BINARY_HEADER_SIZE);
+		if (bb.getInt() != BINARY_MAGIC) {
+			throw new IOException("Not a binary gram file: "+fileName);
+		}
+		int version = bb.getInt();
+		if (version != BINARY_VERSION) {
+			throw new IOException("Unsupported version "+version+": "+fileName);
+		}
+		BinaryHeader h = new BinaryHeader();
+		h.precision = bb.getInt();
+		if (h.precision != 4 && h.precision != 8) {
+			throw new IOException("Unsupported precision "+h.precision+": "+fileName);
+		}
+		h.n = bb.getInt();
+		h.labelsOffset = bb.getLong();
+		h.fingerprint = bb.getLong();
+		return h;
+	}
+	
+	/**
+	 * Reads the class labels starting at the given position of the channel.
+	 */
+	static String[] readLabels(FileChannel fc, ByteBuffer bb, long labelsOffset) throws IOException {
+		fc.position(labelsOffset);
+		bb.clear();
+		bb.limit(0);
+		fill(fc, bb, 4);
+		String[] classes = new String[bb.getInt()];
+		for (int i=0; i<classes.length; i++) {
+			fill(fc, bb, 4);
+			byte[] b = new byte[bb.getInt()];
+			for (int k=0; k<b.length; ) {
+				fill(fc, bb, 1);
+				int len = Math.min(bb.remaining(), b.length-k);
+				bb.get(b, k, len);
+				k += len;
+			}
+			classes[i] = new String(b, StandardCharsets.UTF_8);
+		}
+		return classes;
+	}
+	
+	/**
+	 * Writes the class labels starting at the current position of the channel.
+	 */
+	static void writeLabels(FileChannel fc, ByteBuffer bb, String[] classes) throws IOException {
+		if (bb.remaining() < 4) flush(fc, bb);
+		bb.putInt(classes.length);
+		for (String c : classes) {
+			byte[] b = c.getBytes(StandardCharsets.UTF_8);
+			if (bb.remaining() < 4) flush(fc, bb);
+			bb.putInt(b.length);
+			for (int k=0; k<b.length; ) {
+				if (!bb.hasRemaining()) flush(fc, bb);
+				int len = Math.min(bb.remaining(), b.length-k);
+				bb.put(b, k, len);
+				k += len;
+			}
+		}
+		flush(fc, bb);
+	}
+	
+	private static void flush(FileChannel fc, ByteBuffer bb) throws IOException {
+		bb.flip();
+		while (bb.hasRemaining()) {
+			fc.write(bb);
+		}
+		bb.clear();
+	}
+	
+	/**
+	 * Reads from the channel until at least the given number of bytes are 
+	 * available in the buffer, which is ready for reading afterwards.
+	 */
+	static void fill(FileChannel fc, ByteBuffer bb, int bytes) throws IOException {
+		if (bb.remaining() >= bytes) return;
+		bb.compact();
+		while (bb.position() < bytes) {
+			if (fc.read(bb) < 0) throw new IOException("Unexpected end of file.");
+		}
+		bb.flip();
 	}
 	
 	/**
 	 * Writes data in LibSVM format.
 	 * @param m the matrix of quadratic size
 	 * @param classes the class labels
-	 * @param w the output writer 
+	 * @param os the output stream 
 	 * @throws IOException
 	 */
-	private static void writeLibSVMString(double[][] m, String[] classes, Writer w) throws IOException {
-		ArrayList<Integer> rc = new ArrayList<>();
+	private static void writeLibSVMString(double[][] m, String[] classes, OutputStream os) throws IOException {
+		int[] rc = new int[m.length];
 		for (int i=0;i<m.length; i++) {
-			rc.add(i);
+			rc[i] = i;
 		}
-		writeLibSVMString(m, classes, rc, rc, w);
+		writeLibSVMString(m, classes, rc, rc, os);
 	}
 
 	/**
-	 * Writes data in LibSVM format.
+	 * Writes data in LibSVM format. If more than one thread is configured, 
+	 * chunks of rows are formatted in parallel and written in order, see 
+	 * {@link ParallelTools}.
 	 * @param m the matrix
 	 * @param classes the class labels
 	 * @param rows restrict to these rows 
 	 * @param columns restrict to these columns
-	 * @param w the output writer 
+	 * @param os the output stream, class labels are encoded using the default charset 
 	 * @throws IOException
 	 */
-	private static void writeLibSVMString(double[][] m, String[] classes, ArrayList<Integer> rows, ArrayList<Integer> columns, Writer w) throws IOException {
-		int idRow=1;
-		for (int i : rows) {
-			w.append(classes[i]);
-			w.append(" 0:"+idRow++);
-			int idColumn=1;
-			for (int j : columns) {
-				double val = m[i][j];
-				// such small values result in an error with strtod()
-				// used by libsvm when parsing the input file.
-				// it should be safe to set the value to zero here!
-				if (val > 0 && val <= 1E-300) {
-					System.out.println("Warning: "+val+" was set to 0");
-					val = 0d;
+	private static void writeLibSVMString(double[][] m, String[] classes, int[] rows, int[] columns, OutputStream os) throws IOException {
+		if (!ParallelTools.isParallel()) {
+			LineBuffer lb = new LineBuffer(16 * (columns.length+1));
+			for (int r=0; r<rows.length; r++) {
+				lb.clear();
+				formatLibSVMRow(m, classes, rows, columns, r, lb);
+				lb.writeTo(os);
+			}
+			return;
+		}
+		
+		int chunkSize = Math.max(1, LIBSVM_CHUNK_SIZE / Math.max(1, columns.length));
+		int window = 2 * ParallelTools.getThreadCount();
+		ArrayDeque<Future<LineBuffer>> pending = new ArrayDeque<>();
+		for (int lo=0; lo<rows.length; lo+=chunkSize) {
+			final int from = lo, to = Math.min(rows.length, lo+chunkSize);
+			pending.add(ParallelTools.getPool().submit(() -> {
+				LineBuffer lb = new LineBuffer(16 * (to-from) * (columns.length+1));
+				for (int r=from; r<to; r++) {
+					formatLibSVMRow(m, classes, rows, columns, r, lb);
+				}
+				return lb;
+			}));
+			if (pending.size() >= window) {
+				getChunk(pending.poll()).writeTo(os);
+			}
+		}
+		while (!pending.isEmpty()) {
+			getChunk(pending.poll()).writeTo(os);
+		}
+	}
+	
+	private static LineBuffer getChunk(Future<LineBuffer> f) throws IOException {
+		try {
+			return f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+			if (cause instanceof Error) throw (Error)cause;
+			throw new IOException(cause);
+		}
+	}
+	
+	/**
+	 * Appends the r-th selected row in LibSVM format, i.e., the class label
+	 * and the (1-based) row id, followed by the values of the selected columns.
+	 */
+	private static void formatLibSVMRow(double[][] m, String[] classes, int[] rows, int[] columns, int r, LineBuffer lb) {
+		int i = rows[r];
+		lb.append(classes[i].getBytes(Charset.defaultCharset()));
+		lb.append(" 0:");
+		lb.append(r+1);
+		double[] mi = m[i];
+		for (int c=0; c<columns.length; c++) {
+			double val = mi[columns[c]];
+			// such small values result in an error with strtod()
+			// used by libsvm when parsing the input file.
+			// it should be safe to set the value to zero here!
+			if (val > 0 && val <= 1E-300) {
+				System.out.println("Warning: "+val+" was set to 0");
+				val = 0d;
+			}
+			lb.append(' ');
+			lb.append(c+1);
+			lb.append(':');
+			lb.append(val);
+		}
+		lb.append('\n');
+	}
+	
+	private static int[] toArray(ArrayList<Integer> list) {
+		int[] r = new int[list.size()];
+		for (int i=0; i<r.length; i++) {
+			r[i] = list.get(i);
+		}
+		return r;
+	}
+	
+	/**
+	 * Growing byte buffer, which formats numbers as ASCII characters without 
+	 * creating intermediate strings where possible. Doubles are formatted 
+	 * exactly as by {@link Double#toString(double)}.
+	 */
+	private static class LineBuffer {
+		
+		private byte[] buf;
+		private int len;
+		
+		LineBuffer(int capacity) {
+			buf = new byte[capacity];
+		}
+		
+		void clear() {
+			len = 0;
+		}
+		
+		void append(char c) {
+			ensureCapacity(1);
+			buf[len++] = (byte)c;
+		}
+		
+		/**
+		 * Appends a string consisting of ASCII characters.
+		 */
+		void append(String s) {
+			ensureCapacity(s.length());
+			for (int k=0; k<s.length(); k++) {
+				buf[len++] = (byte)s.charAt(k);
+			}
+		}
+		
+		void append(byte[] b) {
+			ensureCapacity(b.length);
+			System.arraycopy(b, 0, buf, len, b.length);
+			len += b.length;
+		}
+		
+		void append(long v) {
+			if (v < 0) {
+				if (v == Long.MIN_VALUE) {
+					append(Long.toString(v));
+					return;
 				}
-				w.append(" "+(idColumn++)+":"+val);
+				append('-');
+				v = -v;
+			}
+			ensureCapacity(19);
+			int start = len;
+			do {
+				buf[len++] = (byte)('0' + v % 10);
+				v /= 10;
+			} while (v != 0);
+			// reverse digits
+			for (int a=start, b=len-1; a<b; a++, b--) {
+				byte t = buf[a];
+				buf[a] = buf[b];
+				buf[b] = t;
+			}
+		}
+		
+		void append(double v) {
+			// Double.toString uses plain notation with a single fractional
+			// digit for integral values in [1E-3, 1E7)
+			if (v == (long)v && v > -1E7 && v < 1E7 && (v != 0 || 1/v > 0)) {
+				append((long)v);
+				append(".0");
+			} else {
+				append(Double.toString(v));
+			}
+		}
+		
+		void writeTo(OutputStream os) throws IOException {
+			os.write(buf, 0, len);
+		}
+		
+		private void ensureCapacity(int n) {
+			if (len + n > buf.length) {
+				buf = Arrays.copyOf(buf, Math.max(2*buf.length, len+n));
 			}
-			w.append("\n");
 		}
 	}
 
@@ -0,0 +1,453 @@
+package util.kernel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Symmetric matrix stored on disk as square tiles of its upper triangle,
+ * such that matrices exceeding the heap can be computed and read. Tiles
+ * are written independently by positional writes and marked as
+ * complete after they have been forced to the storage device, hence a
+ * computation interrupted by a crash can be resumed by computing the
+ * missing tiles only, see
+ * {@link comparison.GramComputation#computeSymmetric(int, comparison.GramComputation.PairFunction, TiledGramFile)}.
+ *
+ * The file consists of
+ * <ul>
+ * <li>a header of {@value #HEADER_SIZE} bytes: the magic number
+ * {@link #MAGIC}, the version, the precision in bytes per entry (4 or 8),
+ * the dimension n, the block size b, an unused int (all int), the offset of
+ * the class labels, the offset of the first tile and the fingerprint of
+ * the graphs or 0 if unknown (long), see
+ * {@link benchmark.dataset.SDataset#getPrefixFingerprints()},</li>
+ * <li>one status byte for each tile, which is 1 iff the tile is complete,</li>
+ * <li>the tiles (bi, bj) for all blocks bi <= bj ordered by bi and bj,
+ * starting at a multiple of 4096 bytes. A tile contains the entries of the
+ * rows bi*b, ... and columns bj*b, ... of the matrix row by row as float
+ * or double, where the tiles of the last block are smaller if n is not a
+ * multiple of b,</li>
+ * <li>the class labels as in the binary gram files of {@link GramUtil}.</li>
+ * </ul>
+ * All values are stored in little-endian byte order.
+ *
+ * Tiles can be written and read concurrently. Tiles are written and read
+ * by positional accesses instead of mappings, which are only released by
+ * the garbage collector.
+ */
+public class TiledGramFile implements Closeable {
+
+	/**
+	 * Magic number of tiled gram files, the ASCII characters "KGTL".
+	 */
+	public static final int MAGIC = 0x4B47544C;
+	public static final int VERSION = 2;
+	public static final int HEADER_SIZE = 48;
+
+	/**
+	 * The default number of rows and columns of a tile of new files.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 256;
+
+	/**
+	 * The maximum block size, such that the entries of a tile can be 
+	 * addressed by int.
+	 */
+	public static final int MAX_BLOCK_SIZE = 8192;
+
+	private static final int ALIGNMENT = 4096;
+	private static final int BUFFER_SIZE = 1 << 20;
+	private static final byte COMPLETE = 1;
+
+	private final String fileName;
+	private final FileChannel fc;
+	private final boolean writable;
+	private final int precision;
+	private final int n;
+	private final int blockSize;
+	private final int blocks;
+	private final long dataOffset;
+	private final long[] tileOffset;
+	private final boolean[] complete;
+	private final String[] classes;
+	private final long fingerprint;
+
+	private TiledGramFile(String fileName, FileChannel fc, boolean writable, int precision, int n, int blockSize, String[] classes, long fingerprint) {
+		this.fileName = fileName;
+		this.fc = fc;
+		this.writable = writable;
+		this.precision = precision;
+		this.n = n;
+		this.blockSize = blockSize;
+		this.blocks = (n + blockSize - 1) / blockSize;
+		int tiles = blocks * (blocks + 1) / 2;
+		this.dataOffset = (HEADER_SIZE + tiles + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+		this.tileOffset = new long[tiles+1];
+		tileOffset[0] = dataOffset;
+		int t = 0;
+		for (int bi=0; bi<blocks; bi++) {
+			for (int bj=bi; bj<blocks; bj++, t++) {
+				tileOffset[t+1] = tileOffset[t] + (long)precision * getBlockLength(bi) * getBlockLength(bj);
+			}
+		}
+		this.complete = new boolean[tiles];
+		this.classes = classes;
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * Opens the file for computing the matrix. An existing file of the same
+	 * dimension, block size, precision, class labels and fingerprint is 
+	 * resumed, i.e., its complete tiles are retained, otherwise a new file 
+	 * is created.
+	 * @param fileName the file name
+	 * @param classes the class labels, their number is the dimension
+	 * @param fingerprint the fingerprint of the graphs
+	 * @param blockSize the number of rows and columns of a tile
+	 * @param singlePrecision true to store entries as float, false to store them as double
+	 * @throws IOException
+	 */
+	public static TiledGramFile open(String fileName, String[] classes, long fingerprint, int blockSize, boolean singlePrecision) throws IOException {
+		if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE) {
+			throw new IllegalArgumentException("The block size must be between 1 and "+MAX_BLOCK_SIZE+".");
+		}
+		int precision = singlePrecision ? 4 : 8;
+		Path path = Paths.get(fileName);
+		if (Files.exists(path)) {
+			try {
+				TiledGramFile f = open(fileName, true);
+				if (f.n == classes.length && f.blockSize == blockSize && f.precision == precision
+						&& Arrays.equals(f.classes, classes) && f.fingerprint == fingerprint) {
+					return f;
+				}
+				f.close();
+			} catch (IOException | RuntimeException e) {
+				// invalid or truncated file, e.g., crash during creation
+			}
+		}
+
+		FileChannel fc = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		TiledGramFile f = new TiledGramFile(fileName, fc, true, precision, classes.length, blockSize, classes.clone(), fingerprint);
+		try {
+			long labelsOffset = f.tileOffset[f.tileOffset.length-1];
+			ByteBuffer bb = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+			fc.position(labelsOffset);
+			GramUtil.writeLabels(fc, bb, classes);
+			// header and status bytes are written last, the tiles are sparse
+			bb.clear();
+			bb.putInt(MAGIC);
+			bb.putInt(VERSION);
+			bb.putInt(precision);
+			bb.putInt(f.n);
+			bb.putInt(blockSize);
+			bb.putInt(0);
+			bb.putLong(labelsOffset);
+			bb.putLong(f.dataOffset);
+			bb.putLong(fingerprint);
+			bb.flip();
+			write(fc, bb, 0);
+			write(fc, ByteBuffer.allocate(f.complete.length), HEADER_SIZE);
+			fc.force(true);
+		} catch (IOException | RuntimeException e) {
+			fc.close();
+			throw e;
+		}
+		return f;
+	}
+
+	/**
+	 * Opens an existing file for reading.
+	 * @param fileName the file name
+	 * @throws IOException if the file is not a valid tiled gram file
+	 */
+	public static TiledGramFile open(String fileName) throws IOException {
+		return open(fileName, false);
+	}
+
+	private static TiledGramFile open(String fileName, boolean writable) throws IOException {
+		FileChannel fc = writable ? FileChannel.open(Paths.get(fileName), StandardOpenOption.READ, StandardOpenOption.WRITE)
+				: FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		try {
+			ByteBuffer bb = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+			bb.limit(0);
+			GramUtil.fill(fc, bb, HEADER_SIZE);
+			if (bb.getInt() != MAGIC) {
+				throw new IOException("Not a tiled gram file: "+fileName);
+			}
+			int version = bb.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported version "+version+": "+fileName);
+			}
+			int precision = bb.getInt();
+			int n = bb.getInt();
+			int blockSize = bb.getInt();
+			bb.getInt();
+			long labelsOffset = bb.getLong();
+			long dataOffset = bb.getLong();
+			long fingerprint = bb.getLong();
+			if ((precision != 4 && precision != 8) || n < 0 || blockSize < 1 || blockSize > MAX_BLOCK_SIZE) {
+				throw new IOException("Invalid header: "+fileName);
+			}
+			String[] classes = GramUtil.readLabels(fc, bb, labelsOffset);
+			TiledGramFile f = new TiledGramFile(fileName, fc, writable, precision, n, blockSize, classes, fingerprint);
+			if (f.dataOffset != dataOffset || f.tileOffset[f.tileOffset.length-1] != labelsOffset || classes.length != n) {
+				throw new IOException("Invalid header: "+fileName);
+			}
+			ByteBuffer status = ByteBuffer.allocate(f.complete.length);
+			while (status.hasRemaining()) {
+				if (fc.read(status, HEADER_SIZE + status.position()) < 0) throw new IOException("Unexpected end of file.");
+			}
+			for (int t=0; t<f.complete.length; t++) {
+				f.complete[t] = status.get(t) == COMPLETE;
+			}
+			return f;
+		} catch (IOException | RuntimeException e) {
+			fc.close();
+			throw e;
+		}
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * @return the number of rows and columns of the matrix
+	 */
+	public int getDimension() {
+		return n;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the dimension of the file is not n
+	 */
+	public void checkDimension(int n) throws IllegalArgumentException {
+		if (n != this.n) {
+			throw new IllegalArgumentException("The dimension of the file differs from the size of the set.");
+		}
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * @return the number of blocks of rows and columns, respectively
+	 */
+	public int getBlockCount() {
+		return blocks;
+	}
+
+	/**
+	 * @return the number of rows of the given block
+	 */
+	public int getBlockLength(int block) {
+		return Math.min(blockSize, n - block * blockSize);
+	}
+
+	public boolean isSinglePrecision() {
+		return precision == 4;
+	}
+
+	public String[] getClasses() {
+		return classes.clone();
+	}
+
+	/**
+	 * @return the fingerprint of the graphs, 0 if unknown
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * @return the index of the tile (bi, bj) with bi <= bj
+	 */
+	private int getTileIndex(int bi, int bj) {
+		if (bi < 0 || bi > bj || bj >= blocks) {
+			throw new IllegalArgumentException("Invalid tile ("+bi+", "+bj+").");
+		}
+		return bi * blocks - bi * (bi - 1) / 2 + bj - bi;
+	}
+
+	/**
+	 * @return true iff the tile (bi, bj) with bi <= bj has been written
+	 */
+	public synchronized boolean isComplete(int bi, int bj) {
+		return complete[getTileIndex(bi, bj)];
+	}
+
+	/**
+	 * @return true iff all tiles have been written
+	 */
+	public synchronized boolean isComplete() {
+		for (boolean c : complete) {
+			if (!c) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the tile (bi, bj) with bi <= bj and marks it as complete after
+	 * forcing it to the storage device.
+	 * @param bi the block of rows
+	 * @param bj the block of columns
+	 * @param values the entries of the tile row by row
+	 * @throws IOException
+	 */
+	public void writeTile(int bi, int bj, double[] values) throws IOException {
+		int t = getTileIndex(bi, bj);
+		if (values.length != getBlockLength(bi) * getBlockLength(bj)) {
+			throw new IllegalArgumentException("The tile ("+bi+", "+bj+") has "+getBlockLength(bi) * getBlockLength(bj)+" entries.");
+		}
+		if (!writable) {
+			throw new IllegalStateException("The file is opened for reading.");
+		}
+		ByteBuffer bb = ByteBuffer.allocate((int)Math.min(BUFFER_SIZE, tileOffset[t+1] - tileOffset[t])).order(ByteOrder.LITTLE_ENDIAN);
+		long position = tileOffset[t];
+		for (int k=0; k<values.length; k++) {
+			if (bb.remaining() < precision) {
+				bb.flip();
+				int length = bb.remaining();
+				write(fc, bb, position);
+				position += length;
+				bb.clear();
+			}
+			if (precision == 4) {
+				bb.putFloat((float)values[k]);
+			} else {
+				bb.putDouble(values[k]);
+			}
+		}
+		bb.flip();
+		write(fc, bb, position);
+		fc.force(false);
+		synchronized (this) {
+			write(fc, ByteBuffer.wrap(new byte[] { COMPLETE }), HEADER_SIZE + t);
+			fc.force(false);
+			complete[t] = true;
+		}
+	}
+
+	/**
+	 * Reads the complete tile (bi, bj) with bi <= bj.
+	 * @return the entries of the tile row by row
+	 * @throws IOException
+	 */
+	public double[] readTile(int bi, int bj) throws IOException {
+		double[] r = new double[getBlockLength(bi) * getBlockLength(bj)];
+		readTile(bi, bj, r, 0, r.length);
+		return r;
+	}
+
+	/**
+	 * Reads the entries from, ..., to-1 of the complete tile (bi, bj) with
+	 * bi <= bj into the array.
+	 */
+	private void readTile(int bi, int bj, double[] values, int from, int to) throws IOException {
+		int t = getTileIndex(bi, bj);
+		synchronized (this) {
+			if (!complete[t]) {
+				throw new IllegalStateException("The tile ("+bi+", "+bj+") has not been computed.");
+			}
+		}
+		ByteBuffer bb = ByteBuffer.allocate(precision * (to - from)).order(ByteOrder.LITTLE_ENDIAN);
+		long position = tileOffset[t] + (long)precision * from;
+		while (bb.hasRemaining()) {
+			int read = fc.read(bb, position + bb.position());
+			if (read < 0) throw new IOException("Unexpected end of file.");
+		}
+		bb.flip();
+		for (int k=from; k<to; k++) {
+			values[k] = precision == 4 ? bb.getFloat() : bb.getDouble();
+		}
+	}
+
+	/**
+	 * Reads the rows of a block of rows, which allows to stream the matrix
+	 * row by row reading each tile once per block. All tiles containing the
+	 * rows must be complete.
+	 * @param bi the block of rows
+	 * @param rows array of at least {@link #getBlockLength(int)} arrays of
+	 * length n receiving the rows
+	 * @throws IOException
+	 */
+	public void readRows(int bi, double[][] rows) throws IOException {
+		int length = getBlockLength(bi);
+		for (int r=0; r<length; r++) {
+			if (rows[r].length != n) {
+				throw new IllegalArgumentException("The rows must have length "+n+".");
+			}
+		}
+		double[] tile = new double[blockSize * blockSize];
+		for (int bj=0; bj<blocks; bj++) {
+			int columns = getBlockLength(bj);
+			int offset = bj * blockSize;
+			if (bj < bi) {
+				// the tile (bj, bi) stores the rows as columns
+				readTile(bj, bi, tile, 0, columns * length);
+				for (int c=0; c<columns; c++) {
+					for (int r=0; r<length; r++) {
+						rows[r][offset + c] = tile[c*length + r];
+					}
+				}
+			} else {
+				readTile(bi, bj, tile, 0, length * columns);
+				for (int r=0; r<length; r++) {
+					System.arraycopy(tile, r*columns, rows[r], offset, columns);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a single row of the matrix, all tiles containing it must be
+	 * complete. Note: The tiles storing the row as column are read 
+	 * completely, use {@link #readRows(int, double[][])} to read many rows.
+	 * @param i the row
+	 * @param row array of length n receiving the row
+	 * @throws IOException
+	 */
+	public void readRow(int i, double[] row) throws IOException {
+		if (row.length != n) {
+			throw new IllegalArgumentException("The row must have length "+n+".");
+		}
+		int bi = i / blockSize;
+		int r = i - bi * blockSize;
+		int length = getBlockLength(bi);
+		double[] tile = new double[blockSize * blockSize];
+		for (int bj=0; bj<blocks; bj++) {
+			int columns = getBlockLength(bj);
+			int offset = bj * blockSize;
+			if (bj < bi) {
+				readTile(bj, bi, tile, 0, columns * length);
+				for (int c=0; c<columns; c++) {
+					row[offset + c] = tile[c*length + r];
+				}
+			} else {
+				readTile(bi, bj, tile, r*columns, (r+1)*columns);
+				System.arraycopy(tile, r*columns, row, offset, columns);
+			}
+		}
+	}
+
+	private static void write(FileChannel fc, ByteBuffer bb, long position) throws IOException {
+		while (bb.hasRemaining()) {
+			position += fc.write(bb, position);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		fc.close();
+	}
+
+}